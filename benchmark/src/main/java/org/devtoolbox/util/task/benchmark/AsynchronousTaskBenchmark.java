@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.devtoolbox.util.task.executor.TaskExecutor;
+import org.devtoolbox.util.task.implementation.AsynchronousTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Latency of an empty asynchronous task, from the call to {@link AsynchronousTask#perform()} to the completion event.
+ *
+ * @author Arnaud Lecollaire
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AsynchronousTaskBenchmark {
+
+    @Param({ "shared", "virtualThreads" })
+    private String executorType;
+
+    private AsynchronousTask task;
+    private Thread waitingThread;
+    private volatile boolean completed;
+
+
+    @Setup
+    public void setUp() {
+        final TaskExecutor executor = "shared".equals(executorType) ? TaskExecutor.shared() : TaskExecutor.virtualThreads();
+        task = AsynchronousTask.create("benchmark task", executor, () -> {});
+        waitingThread = Thread.currentThread();
+        task.addTaskCompletionListener(endStatus -> {
+            completed = true;
+            LockSupport.unpark(waitingThread);
+        });
+    }
+
+    @Benchmark
+    public void startToCompletion() {
+        completed = false;
+        task.perform();
+        while (! completed) {
+            LockSupport.park(this);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.implementation.SynchronousTask;
+import org.devtoolbox.util.task.listener.TaskListener;
+import org.devtoolbox.util.task.message.TaskMessage;
+import org.devtoolbox.util.task.status.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Overhead of the synchronous task lifecycle, and of the fan-out of its events to the listeners.
+ *
+ * @author Arnaud Lecollaire
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SynchronousTaskBenchmark {
+
+    @Param({ "0", "1", "10", "100" })
+    private int listenersCount;
+
+    private SynchronousTask task;
+
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        task = SynchronousTask.create("benchmark task", () -> {});
+        for (int index = 0; index < listenersCount; index++) {
+            task.addTaskListener(new ConsumingListener(blackhole));
+            task.addTaskCompletionListener(blackhole::consume);
+        }
+    }
+
+    /**
+     * Whole lifecycle of an empty task : 4 status changes and a completion event.
+     */
+    @Benchmark
+    public void perform() {
+        task.perform();
+    }
+
+    @Benchmark
+    public void statusChange() {
+        task.setStatus(TaskStatus.STARTED);
+        task.setStatus(TaskStatus.STOPPED);
+    }
+
+
+    /**
+     * Listener consuming the events without formatting them.
+     */
+    static final class ConsumingListener implements TaskListener {
+
+        private final Blackhole blackhole;
+
+
+        ConsumingListener(final Blackhole blackhole) {
+            super();
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+            blackhole.consume(newStatus);
+        }
+
+        @Override
+        public void handleTaskMessageTemplate(final TaskMessage message) {
+            blackhole.consume(message);
+        }
+
+        @Override
+        public void handleTaskError(final TaskException error) {
+            blackhole.consume(error);
+        }
+    }
+}
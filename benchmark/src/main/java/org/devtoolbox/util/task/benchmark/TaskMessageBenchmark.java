@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.devtoolbox.util.task.implementation.SynchronousTask;
+import org.devtoolbox.util.task.listener.TaskListener;
+import org.devtoolbox.util.task.message.TaskMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Cost of {@link SynchronousTask#sendTaskMessage(String, Object...)}, with a listener reading the formatted text or only the message.
+ *
+ * @author Arnaud Lecollaire
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskMessageBenchmark {
+
+    /** true if the listener formats the messages */
+    @Param({ "true", "false" })
+    private boolean formatted;
+
+    private SynchronousTask task;
+    private int counter;
+
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        task = SynchronousTask.create("benchmark task", () -> {});
+        task.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskMessageTemplate(final TaskMessage message) {
+                blackhole.consume(formatted ? message.getText() : message);
+            }
+        });
+    }
+
+    @Benchmark
+    public void messageWithoutParameters() {
+        task.sendTaskMessage("benchmark message");
+    }
+
+    @Benchmark
+    public void messageWithParameters() {
+        task.sendTaskMessage("benchmark message [{0}] from task [{1}]", Integer.valueOf(counter++ & 0xFF), "benchmark task");
+    }
+}
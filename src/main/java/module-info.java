@@ -20,14 +20,22 @@
  */
 module org.devtoolbox.util.task {
 
-    requires transitive javafx.base;
+    // only needed by the JavaFX adapters of the tasks (status, progress ...), headless applications can run without it
+    requires static transitive javafx.base;
+    // only needed to record the flight recorder events of the tasks, which are not loaded on runtimes without it
+    requires static jdk.jfr;
     requires org.slf4j;
     requires org.devtoolbox.util.exception;
 
     exports org.devtoolbox.util.task;
     exports org.devtoolbox.util.task.error;
+    exports org.devtoolbox.util.task.event;
+    exports org.devtoolbox.util.task.executor;
+    exports org.devtoolbox.util.task.graph;
     exports org.devtoolbox.util.task.implementation;
     exports org.devtoolbox.util.task.listener;
+    exports org.devtoolbox.util.task.message;
+    exports org.devtoolbox.util.task.metrics;
     exports org.devtoolbox.util.task.status;
 
 }
\ No newline at end of file
@@ -16,10 +16,23 @@
  */
 package org.devtoolbox.util.task;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.devtoolbox.util.task.event.TaskEvent;
 import org.devtoolbox.util.task.listener.TaskCompletionListener;
 import org.devtoolbox.util.task.listener.TaskListener;
+import org.devtoolbox.util.task.status.TaskEndStatus;
+import org.devtoolbox.util.task.status.TaskPriority;
 import org.devtoolbox.util.task.status.TaskStatus;
 
+import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
 
 
@@ -30,11 +43,93 @@ import javafx.beans.property.ReadOnlyObjectProperty;
  */
 public interface Task {
 
+    /**
+     * Gets the task's name.
+     *
+     * @return the task name
+     */
+    String getName();
+
     /**
      * Starts the task.
      */
     void perform();
 
+    /**
+     * Cancels the current execution of the task : it's asked to stop as soon as possible and ends with the {@link TaskEndStatus#ABORTED} status.
+     * The request only applies to the current execution : cancelling a task that is not running has no effect on its next execution.
+     * <p>
+     * The thread interrupted when mayInterrupt is true is the thread running the action. For a synchronous task, or a task run
+     * by a caller-runs executor, it is the thread that called {@link #perform()}, which belongs to the caller : its interrupted
+     * flag is cleared once the action is done, but anything it runs in the meantime (listeners notified by the action for instance) sees it.
+     *
+     * @param mayInterrupt true if the thread running the task may be interrupted, to unblock a waiting action
+     */
+    void cancel(boolean mayInterrupt);
+
+    /**
+     * Gets the priority used by the executors that order the tasks waiting for a thread.
+     *
+     * @return the task priority, {@link TaskPriority#NORMAL} by default
+     */
+    default TaskPriority getPriority() {
+        return TaskPriority.NORMAL;
+    }
+
+    /**
+     * Gets a future completed with the end status of the current execution of the task, or of its next execution if it is not running.
+     * Once the execution is completed, the future stays completed until the task is performed again.
+     * Dependent actions registered on the future run in the thread completing the task, unless an async method is used.
+     *
+     * @return a future completed when the task is completed
+     */
+    CompletableFuture<TaskEndStatus> completion();
+
+    /**
+     * Waits for the completion of several tasks, without blocking more than one thread.
+     *
+     * @param tasks the tasks to wait for
+     * @param timeout the max duration to wait
+     * @return true if all the tasks have been completed, false if the timeout has expired
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    static boolean awaitAll(final Collection<? extends Task> tasks, final Duration timeout) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(tasks.size());
+        for (final Task task : tasks) {
+            task.completion().whenComplete((endStatus, error) -> latch.countDown());
+        }
+        return latch.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits for the completion of any task among several tasks.
+     *
+     * @param tasks the tasks to wait for
+     * @param timeout the max duration to wait
+     * @return the first completed task, or null if the timeout has expired (or if there is no task)
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    static <T extends Task> T awaitAny(final Collection<T> tasks, final Duration timeout) throws InterruptedException {
+        if (tasks.isEmpty()) {
+            return null;
+        }
+        final CompletableFuture<T> firstCompletedTask = new CompletableFuture<>();
+        for (final T task : tasks) {
+            task.completion().whenComplete((endStatus, error) -> firstCompletedTask.complete(task));
+            if (firstCompletedTask.isDone()) {
+                break;
+            }
+        }
+        try {
+            return firstCompletedTask.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException error) {
+            return null;
+        } catch (final ExecutionException error) {
+            // the future is never completed exceptionally
+            throw new IllegalStateException(error);
+        }
+    }
+
     /**
      * Registers a listener interested in task events.
      *
@@ -65,20 +160,43 @@ public interface Task {
      */
     void removeTaskCompletionListener(final TaskCompletionListener listener);
 
+    /**
+     * Gets the stream of the task events (status changes, messages, errors and completions).
+     * Unlike listeners, subscribers only receive the events they have requested, at their own pace.
+     *
+     * @return the publisher of the task events
+     */
+    Flow.Publisher<TaskEvent> events();
+
     /**
      * Gets the current task's status.
      *
      * @return the task status
      */
-    default TaskStatus getStatus() {
-    	return statusProperty().get();
-    }
+    TaskStatus getStatus();
 
     /**
      * Gets the task's status property. This property is read-only. The status should always be changed by the task itself, not by an external call.
+     * The property is a JavaFX adapter of the task status, created on first access : headless code should use {@link #getStatus()}
+     * and the task listeners instead, so that it never loads the JavaFX classes.
      *
      * @return the task status property
      */
     ReadOnlyObjectProperty<TaskStatus> statusProperty();
 
+    /**
+     * Gets the current task's progress.
+     *
+     * @return the progress, between 0 and 1, or -1 if it is unknown
+     */
+    double getProgress();
+
+    /**
+     * Gets the task's progress property. This property is read-only and its updates are throttled by the task.
+     * Like the status property, it's only created on first access.
+     *
+     * @return the task progress property, between 0 and 1, or -1 if unknown
+     */
+    ReadOnlyDoubleProperty progressProperty();
+
 }
\ No newline at end of file
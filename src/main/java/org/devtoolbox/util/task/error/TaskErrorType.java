@@ -27,7 +27,10 @@ public enum TaskErrorType implements ErrorIdentifier {
 	LISTENER_NOTIFICATION_FAILED("An error occured while sending a notification to a listener for task [{0}]."),
 	TASK_EXECUTION_FAILED("Task [{0}] : execution failed"),
 	TASK_CLEANING_FAILED("Task [{0}] : cleaning failed"),
-	ERROR_IN_TIMEOUT_MONITOR("Task [{0}] : error while trying to monitor task for timeout");
+	ERROR_IN_TIMEOUT_MONITOR("Task [{0}] : error while trying to monitor task for timeout"),
+	TASK_EXECUTION_REJECTED("Task [{0}] : execution rejected by the task executor"),
+	BULKHEAD_FULL("Task [{0}] : rejected by bulkhead [{1}], too many tasks are waiting for a permit"),
+	BULKHEAD_TIMEOUT("Task [{0}] : no permit available in bulkhead [{1}] after [{2}] ms");
 
 	private final String defaultMessage;
 
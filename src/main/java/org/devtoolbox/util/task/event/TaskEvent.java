@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.event;
+
+import java.util.Objects;
+
+import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.message.TaskMessage;
+import org.devtoolbox.util.task.status.TaskEndStatus;
+import org.devtoolbox.util.task.status.TaskStatus;
+
+
+/**
+ * Event published by a task to the subscribers of its {@link org.devtoolbox.util.task.Task#events() event stream},
+ * and to the handlers of the shared {@link TaskEventBus}.
+ * <p>
+ * Events are immutable and only reference the name of their task, so that buffered events never retain the task itself.
+ *
+ * @author Arnaud Lecollaire
+ */
+public sealed interface TaskEvent {
+
+    /**
+     * Gets the name of the task that published the event.
+     *
+     * @return the task name
+     */
+    String taskName();
+
+    /**
+     * The status of the task has changed.
+     */
+    record StatusChange(String taskName, TaskStatus oldStatus, TaskStatus newStatus) implements TaskEvent {
+
+        public StatusChange {
+            Objects.requireNonNull(oldStatus);
+            Objects.requireNonNull(newStatus);
+        }
+    }
+
+    /**
+     * The task has sent a message.
+     */
+    record Message(String taskName, TaskMessage message) implements TaskEvent {
+
+        public Message {
+            Objects.requireNonNull(message);
+        }
+    }
+
+    /**
+     * An error occured during the execution of the task (or while notifying its listeners).
+     */
+    record Failure(String taskName, TaskException error) implements TaskEvent {
+
+        public Failure {
+            Objects.requireNonNull(error);
+        }
+    }
+
+    /**
+     * The task has completed.
+     */
+    record Completion(String taskName, TaskEndStatus endStatus) implements TaskEvent {
+
+        public Completion {
+            Objects.requireNonNull(endStatus);
+        }
+    }
+
+}
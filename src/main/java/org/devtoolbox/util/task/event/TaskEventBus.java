@@ -0,0 +1,417 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.event;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.devtoolbox.util.task.listener.OverflowPolicy;
+import org.devtoolbox.util.task.status.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Process-wide bus receiving the events of all the tasks, consumed by a small number of handlers.
+ * <p>
+ * The bus is a multi-producer ring buffer : tasks claim a sequence with a CAS and publish their event in the matching slot,
+ * each handler follows the published sequences on its own thread and receives the events by batches. Listening to thousands
+ * of tasks thus doesn't need any listener per task, and the handlers don't contend with the tasks on their aggregation state.
+ * <p>
+ * Without any handler, tasks only read a volatile field : no event is created. Tasks also apply the {@link #setFilter(TaskEventFilter) filter}
+ * before creating their events. When the slowest handler is a full buffer behind, events are dropped
+ * ({@link OverflowPolicy#DROP_NEWEST}, the default) or the tasks wait for the handlers ({@link OverflowPolicy#BLOCK}).
+ * <p>
+ * Handled events are not cleared from the buffer : each slot keeps its last event until it's reused, so up to {@link #getBufferSize()}
+ * events stay reachable. The buffer is cleared when the last handler is removed.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class TaskEventBus implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskEventBus.class);
+
+    private static final AtomicLongFieldUpdater<TaskEventBus> CURSOR =
+            AtomicLongFieldUpdater.newUpdater(TaskEventBus.class, "cursor");
+    private static final AtomicReferenceFieldUpdater<TaskEventBus, HandlerProcessor[]> PROCESSORS =
+            AtomicReferenceFieldUpdater.newUpdater(TaskEventBus.class, HandlerProcessor[].class, "processors");
+    private static final HandlerProcessor[] NO_PROCESSORS = new HandlerProcessor[0];
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int SPINS_BEFORE_PARKING = 100;
+    /** true once the shared bus has been created, its buffer is only allocated if it's used */
+    private static volatile boolean sharedBusCreated = false;
+
+    private final String name;
+    private final AtomicReferenceArray<TaskEvent> entries;
+    // sequence of the event stored in each slot, so that handlers know when a claimed slot has been written
+    private final AtomicLongArray publishedSequences;
+    private final int mask;
+    private final LongAdder droppedEvents = new LongAdder();
+    // last claimed sequence
+    private volatile long cursor = -1;
+    // cached sequence of the slowest handler, so that producers don't read all the handlers for each event
+    private volatile long gatingSequence = -1;
+    private volatile HandlerProcessor[] processors = NO_PROCESSORS;
+    private volatile TaskEventFilter filter;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+
+    /**
+     * @param name the name of the bus, used to name the threads of its handlers
+     * @param bufferSize the number of events buffered, rounded up to a power of two
+     */
+    public TaskEventBus(final String name, final int bufferSize) {
+        super();
+        if ((bufferSize < 1) || (bufferSize > (1 << 30))) {
+            throw new IllegalArgumentException("invalid buffer size [" + bufferSize + "]");
+        }
+        this.name = Objects.requireNonNull(name);
+        final int capacity = (bufferSize == 1) ? 1 : Integer.highestOneBit(bufferSize - 1) << 1;
+        entries = new AtomicReferenceArray<>(capacity);
+        publishedSequences = new AtomicLongArray(capacity);
+        for (int index = 0; index < capacity; index++) {
+            publishedSequences.set(index, -1);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Gets the bus receiving the events of all the tasks, created on the first call.
+     *
+     * @return the shared bus
+     */
+    public static TaskEventBus shared() {
+        return SharedBusHolder.SHARED;
+    }
+
+    /**
+     * Checks if an event of a task should be created for the shared bus, without creating the bus :
+     * as long as nobody has asked for the shared bus, tasks only read a static volatile field.
+     *
+     * @param taskName the name of the task sending the event
+     * @param status the status of the task
+     * @return true if the event should be published on the shared bus
+     */
+    public static boolean acceptedBySharedBus(final String taskName, final TaskStatus status) {
+        return sharedBusCreated && SharedBusHolder.SHARED.accepts(taskName, status);
+    }
+
+    /**
+     * Starts a handler on its own thread. It receives the events published after this call.
+     *
+     * @param handler the handler
+     */
+    public void addHandler(final TaskEventHandler handler) {
+        Objects.requireNonNull(handler);
+        HandlerProcessor[] current;
+        HandlerProcessor[] updated;
+        HandlerProcessor processor;
+        do {
+            current = processors;
+            processor = new HandlerProcessor(handler, cursor);
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = processor;
+        } while (! PROCESSORS.compareAndSet(this, current, updated));
+        // producers can still claim slots gated by the previous handlers only (with a cached gating sequence for instance),
+        // but not beyond the cursor read once the handler has been published : the handler starts from there
+        final long startSequence = cursor;
+        processor.sequence = startSequence;
+        gatingSequence = getSlowestSequence(startSequence);
+        final Thread thread = new Thread(processor, name + "-" + updated.length);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops a handler. The events it has not handled yet are skipped.
+     *
+     * @return false if the handler was not registered
+     */
+    public boolean removeHandler(final TaskEventHandler handler) {
+        Objects.requireNonNull(handler);
+        HandlerProcessor[] current;
+        HandlerProcessor[] updated;
+        HandlerProcessor removed;
+        do {
+            current = processors;
+            removed = null;
+            updated = NO_PROCESSORS;
+            for (int index = 0; index < current.length; index++) {
+                if (current[index].handler.equals(handler)) {
+                    removed = current[index];
+                    updated = new HandlerProcessor[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, index);
+                    System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                    break;
+                }
+            }
+            if (removed == null) {
+                return false;
+            }
+        } while (! PROCESSORS.compareAndSet(this, current, updated));
+        removed.stop();
+        if (updated.length == 0) {
+            clearEntries();
+        }
+        return true;
+    }
+
+    /**
+     * Releases the buffered events once there is no handler left to read them.
+     */
+    private void clearEntries() {
+        for (int index = 0; index <= mask; index++) {
+            entries.set(index, null);
+        }
+    }
+
+    public int getHandlersCount() {
+        return processors.length;
+    }
+
+    /**
+     * Checks if an event of a task should be created : there are handlers, and the event matches the filter.
+     *
+     * @param taskName the name of the task sending the event
+     * @param status the status of the task
+     * @return true if the event should be published
+     */
+    public boolean accepts(final String taskName, final TaskStatus status) {
+        if (processors.length == 0) {
+            return false;
+        }
+        final TaskEventFilter currentFilter = filter;
+        return (currentFilter == null) || currentFilter.accept(taskName, status);
+    }
+
+    /**
+     * Publishes an event to all the handlers.
+     *
+     * @param event the event
+     * @return false if the event was dropped (or if there is no handler)
+     */
+    public boolean publish(final TaskEvent event) {
+        Objects.requireNonNull(event);
+        if (processors.length == 0) {
+            return false;
+        }
+        final boolean block = (overflowPolicy == OverflowPolicy.BLOCK);
+        final int capacity = mask + 1;
+        long sequence;
+        do {
+            sequence = cursor + 1;
+            final long wrapPoint = sequence - capacity;
+            while (wrapPoint > gatingSequence) {
+                final long slowestSequence = getSlowestSequence(sequence - 1);
+                gatingSequence = slowestSequence;
+                if (wrapPoint <= slowestSequence) {
+                    break;
+                }
+                if (! block) {
+                    droppedEvents.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        } while (! CURSOR.compareAndSet(this, sequence - 1, sequence));
+        final int index = (int) sequence & mask;
+        entries.set(index, event);
+        publishedSequences.set(index, sequence);
+        return true;
+    }
+
+    private long getSlowestSequence(final long defaultSequence) {
+        HandlerProcessor[] current;
+        long slowestSequence;
+        do {
+            current = processors;
+            slowestSequence = defaultSequence;
+            for (final HandlerProcessor processor : current) {
+                slowestSequence = Math.min(slowestSequence, processor.sequence);
+            }
+            // computed again if a handler has been added meanwhile, so that it's not ignored
+        } while (current != processors);
+        return slowestSequence;
+    }
+
+    public TaskEventFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Sets the filter applied by the tasks before they create their events.
+     *
+     * @param filter the filter, or null to publish all the events
+     */
+    public void setFilter(final TaskEventFilter filter) {
+        this.filter = filter;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets the policy applied when the slowest handler is a full buffer behind.
+     * Only {@link OverflowPolicy#DROP_NEWEST} and {@link OverflowPolicy#BLOCK} are supported : published events are never replaced.
+     */
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        Objects.requireNonNull(overflowPolicy);
+        if ((overflowPolicy != OverflowPolicy.DROP_NEWEST) && (overflowPolicy != OverflowPolicy.BLOCK)) {
+            throw new IllegalArgumentException("overflow policy [" + overflowPolicy + "] is not supported by task event buses");
+        }
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getBufferSize() {
+        return mask + 1;
+    }
+
+    /**
+     * Gets the number of events published since the creation of the bus.
+     *
+     * @return the number of published events
+     */
+    public long getPublishedCount() {
+        return cursor + 1;
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Gets the number of events not handled yet by the slowest handler.
+     *
+     * @return the number of pending events
+     */
+    public long getPendingCount() {
+        final long currentCursor = cursor;
+        return currentCursor - getSlowestSequence(currentCursor);
+    }
+
+    /**
+     * Stops all the handlers.
+     */
+    @Override
+    public void close() {
+        final HandlerProcessor[] stopped = PROCESSORS.getAndSet(this, NO_PROCESSORS);
+        for (final HandlerProcessor processor : stopped) {
+            processor.stop();
+        }
+        clearEntries();
+    }
+
+    @Override
+    public String toString() {
+        return "Task event bus [" + name + "]";
+    }
+
+    private static final class SharedBusHolder {
+
+        private static final TaskEventBus SHARED = createSharedBus();
+
+
+        private static TaskEventBus createSharedBus() {
+            final TaskEventBus bus = new TaskEventBus("task-event-bus", 65_536);
+            sharedBusCreated = true;
+            return bus;
+        }
+    }
+
+    private final class HandlerProcessor implements Runnable {
+
+        private final TaskEventHandler handler;
+        // last handled sequence
+        private volatile long sequence;
+        private volatile boolean running = true;
+        private volatile Thread thread;
+
+
+        HandlerProcessor(final TaskEventHandler handler, final long sequence) {
+            super();
+            this.handler = handler;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            int idleCount = 0;
+            while (running) {
+                final long next = sequence + 1;
+                final long available = getHighestPublishedSequence(next, cursor);
+                if (available < next) {
+                    if (idleCount < SPINS_BEFORE_PARKING) {
+                        idleCount++;
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    continue;
+                }
+                idleCount = 0;
+                for (long current = next; current <= available; current++) {
+                    final TaskEvent event = entries.get((int) current & mask);
+                    if (event == null) {
+                        // the buffer has been cleared, the last handler has been removed meanwhile
+                        continue;
+                    }
+                    try {
+                        handler.handleEvent(event, current, current == available);
+                    } catch (final RuntimeException error) {
+                        LOGGER.error("Handler [{}] of bus [{}] failed to handle event [{}].", handler, name, event, error);
+                    }
+                }
+                // the slots can be reused once the whole batch is handled
+                sequence = available;
+            }
+        }
+
+        /**
+         * Gets the highest sequence of the events that have been written, without any gap.
+         */
+        private long getHighestPublishedSequence(final long next, final long claimed) {
+            for (long current = next; current <= claimed; current++) {
+                if (publishedSequences.get((int) current & mask) != current) {
+                    return current - 1;
+                }
+            }
+            return claimed;
+        }
+
+        void stop() {
+            running = false;
+            final Thread currentThread = thread;
+            if (currentThread != null) {
+                LockSupport.unpark(currentThread);
+            }
+        }
+    }
+}
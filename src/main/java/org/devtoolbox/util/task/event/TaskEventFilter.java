@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.event;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.devtoolbox.util.task.status.TaskStatus;
+
+
+/**
+ * Filter applied by the tasks before they create an event for a {@link TaskEventBus} : rejected events are never allocated.
+ *
+ * @author Arnaud Lecollaire
+ */
+@FunctionalInterface
+public interface TaskEventFilter {
+
+    /**
+     * Checks if an event should be published.
+     *
+     * @param taskName the name of the task sending the event
+     * @param status the status of the task (the new status for a status change)
+     * @return true if the event should be published
+     */
+    boolean accept(String taskName, TaskStatus status);
+
+    /**
+     * Accepts the events of the tasks matching a name predicate.
+     */
+    static TaskEventFilter taskNames(final Predicate<String> taskNames) {
+        Objects.requireNonNull(taskNames);
+        return (taskName, status) -> taskNames.test(taskName);
+    }
+
+    /**
+     * Accepts the events sent by tasks in one of the given statuses.
+     */
+    static TaskEventFilter statuses(final TaskStatus status, final TaskStatus...otherStatuses) {
+        final Set<TaskStatus> statuses = EnumSet.of(status, otherStatuses);
+        return (taskName, taskStatus) -> statuses.contains(taskStatus);
+    }
+
+    default TaskEventFilter and(final TaskEventFilter other) {
+        Objects.requireNonNull(other);
+        return (taskName, status) -> accept(taskName, status) && other.accept(taskName, status);
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.event;
+
+
+/**
+ * Consumer of the events published on a {@link TaskEventBus}. Each handler runs on its own thread and receives all the events,
+ * by batches : it doesn't need any synchronization as long as its state is only read once a batch has ended.
+ *
+ * @author Arnaud Lecollaire
+ */
+@FunctionalInterface
+public interface TaskEventHandler {
+
+    /**
+     * Handles an event.
+     *
+     * @param event the event
+     * @param sequence the sequence number of the event on the bus
+     * @param endOfBatch true for the last event currently available : handlers can flush their aggregations
+     */
+    void handleEvent(TaskEvent event, long sequence, boolean endOfBatch);
+
+}
@@ -0,0 +1,269 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.devtoolbox.util.task.metrics.LatencyHistogram;
+import org.devtoolbox.util.task.metrics.LatencySnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Limits the number of tasks of a given kind running at the same time, whatever the executor running them.
+ * <p>
+ * A task needs a permit to be submitted to its executor. When no permit is available, the task waits in a bounded queue
+ * without holding any thread : it's submitted by the thread releasing a permit, or rejected when its max wait duration expires.
+ * When the queue is full, tasks are rejected right away, so an overloaded resource degrades predictably.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class Bulkhead {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Bulkhead.class);
+
+    private static final Map<String, Bulkhead> BULKHEADS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maxConcurrentTasks;
+    private final int maxWaitingTasks;
+    private final Duration maxWaitDuration;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int runningTasksCount = 0;
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LongAdder rejectedTasksCount = new LongAdder();
+    private final LongAdder timedOutTasksCount = new LongAdder();
+
+
+    /**
+     * @param name the bulkhead name, used in the logs and in the errors
+     * @param maxConcurrentTasks the max number of tasks holding a permit at the same time
+     * @param maxWaitingTasks the max number of tasks waiting for a permit, 0 to reject tasks as soon as no permit is available
+     * @param maxWaitDuration the max duration a task waits for a permit, or null to wait without limit
+     */
+    public Bulkhead(final String name, final int maxConcurrentTasks, final int maxWaitingTasks, final Duration maxWaitDuration) {
+        super();
+        this.name = Objects.requireNonNull(name);
+        if (maxConcurrentTasks < 1) {
+            throw new IllegalArgumentException("max concurrent tasks must be at least 1");
+        }
+        if (maxWaitingTasks < 0) {
+            throw new IllegalArgumentException("max waiting tasks can not be negative");
+        }
+        if ((maxWaitDuration != null) && maxWaitDuration.isNegative()) {
+            throw new IllegalArgumentException("max wait duration can not be negative");
+        }
+        this.maxConcurrentTasks = maxConcurrentTasks;
+        this.maxWaitingTasks = maxWaitingTasks;
+        this.maxWaitDuration = maxWaitDuration;
+    }
+
+    /**
+     * Gets a bulkhead shared under a name, creating it the first time with the given limits.
+     *
+     * @return the bulkhead registered with this name
+     */
+    public static Bulkhead named(final String name, final int maxConcurrentTasks, final int maxWaitingTasks, final Duration maxWaitDuration) {
+        return BULKHEADS.computeIfAbsent(name, bulkheadName -> new Bulkhead(bulkheadName, maxConcurrentTasks, maxWaitingTasks, maxWaitDuration));
+    }
+
+    /**
+     * Gets a bulkhead previously registered with {@link #named(String, int, int, Duration)}.
+     *
+     * @return the bulkhead, or null if no bulkhead is registered with this name
+     */
+    public static Bulkhead named(final String name) {
+        return BULKHEADS.get(name);
+    }
+
+    /**
+     * Requests a permit.
+     * <p>
+     * If a permit is available, the action runs right away in the calling thread. Otherwise the request is queued and the action
+     * runs later in the thread releasing a permit, or the timeout action runs in the timer thread if no permit has been granted
+     * within the max wait duration. Each granted permit must be released with {@link #release()}.
+     *
+     * @param onAcquired the action run once the permit is granted
+     * @param onTimeout the action run if no permit has been granted in time
+     * @return false if the request is rejected because too many tasks are already waiting (no action is run)
+     */
+    public boolean acquire(final Runnable onAcquired, final Runnable onTimeout) {
+        Objects.requireNonNull(onAcquired);
+        Objects.requireNonNull(onTimeout);
+        final Waiter waiter;
+        lock.lock();
+        try {
+            if (runningTasksCount < maxConcurrentTasks) {
+                runningTasksCount++;
+                waiter = null;
+            } else if (waiters.size() < maxWaitingTasks) {
+                waiter = new Waiter(onAcquired, onTimeout, System.nanoTime());
+                waiters.add(waiter);
+            } else {
+                rejectedTasksCount.increment();
+                LOGGER.warn("{} is full, [{}] tasks are running and [{}] are waiting.", this, runningTasksCount, waiters.size());
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (waiter == null) {
+            waitTimes.record(0);
+            onAcquired.run();
+        } else if (maxWaitDuration != null) {
+            waiter.timeoutFuture = TaskTimer.shared().schedule(() -> handleTimeout(waiter), maxWaitDuration);
+        }
+        return true;
+    }
+
+    private void handleTimeout(final Waiter waiter) {
+        lock.lock();
+        try {
+            if (! waiters.remove(waiter)) {
+                // the permit has been granted in the meantime
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        timedOutTasksCount.increment();
+        waiter.onTimeout.run();
+    }
+
+    /**
+     * Releases a permit, the first waiting task (if any) gets it and is run in the calling thread.
+     */
+    public void release() {
+        final Waiter waiter;
+        lock.lock();
+        try {
+            waiter = waiters.poll();
+            if (waiter == null) {
+                if (runningTasksCount == 0) {
+                    throw new IllegalStateException(this + " : a permit has been released but no permit was granted");
+                }
+                runningTasksCount--;
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // the permit is directly handed over to the waiting task
+        final ScheduledFuture<?> timeoutFuture = waiter.timeoutFuture;
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+        }
+        waitTimes.record(System.nanoTime() - waiter.enqueueTime);
+        try {
+            waiter.onAcquired.run();
+        } catch (final RuntimeException error) {
+            LOGGER.error("An error occured while granting a permit of {}.", this, error);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+
+    public int getMaxWaitingTasks() {
+        return maxWaitingTasks;
+    }
+
+    public Duration getMaxWaitDuration() {
+        return maxWaitDuration;
+    }
+
+    /**
+     * Gets the number of granted permits.
+     *
+     * @return the number of tasks holding a permit
+     */
+    public int getRunningTasksCount() {
+        lock.lock();
+        try {
+            return runningTasksCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the depth of the waiting queue.
+     *
+     * @return the number of tasks waiting for a permit
+     */
+    public int getWaitingTasksCount() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedTasksCount() {
+        return rejectedTasksCount.sum();
+    }
+
+    public long getTimedOutTasksCount() {
+        return timedOutTasksCount.sum();
+    }
+
+    /**
+     * Gets the distribution of the durations waited for a permit, including the permits granted right away.
+     *
+     * @return the snapshot of the wait times, in nanoseconds
+     */
+    public LatencySnapshot getWaitTimes() {
+        return waitTimes.getSnapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead [" + name + "]";
+    }
+
+
+    private static final class Waiter {
+
+        private final Runnable onAcquired;
+        private final Runnable onTimeout;
+        private final long enqueueTime;
+        private volatile ScheduledFuture<?> timeoutFuture;
+
+
+        private Waiter(final Runnable onAcquired, final Runnable onTimeout, final long enqueueTime) {
+            this.onAcquired = onAcquired;
+            this.onTimeout = onTimeout;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+}
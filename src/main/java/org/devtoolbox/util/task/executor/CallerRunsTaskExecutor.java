@@ -0,0 +1,45 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.util.Objects;
+
+import org.devtoolbox.util.task.Task;
+
+
+/**
+ * Task executor running the commands directly in the thread that submits them.
+ * Cancelling a task with mayInterrupt set to true then interrupts the thread that performed it.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class CallerRunsTaskExecutor implements TaskExecutor {
+
+    static final CallerRunsTaskExecutor INSTANCE = new CallerRunsTaskExecutor();
+
+
+    @Override
+    public void execute(final Task task, final Runnable command) {
+        Objects.requireNonNull(command);
+        command.run();
+    }
+
+    @Override
+    public String toString() {
+        return "Caller runs executor";
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.metrics.LatencyHistogram;
+import org.devtoolbox.util.task.metrics.LatencySnapshot;
+import org.devtoolbox.util.task.status.TaskPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Task executor running the waiting commands by order of {@link Task#getPriority() task priority}, with a fixed number of daemon threads.
+ * <p>
+ * Each worker thread has its own deques (one per priority) for the commands submitted by the tasks it runs : it takes them
+ * in LIFO order, and idle workers steal the oldest ones from the other workers. Commands submitted from other threads go
+ * to shared FIFO queues. Under saturation, a worker always takes the command with the highest priority it can find.
+ * To avoid starving the low priority tasks, a command that has waited longer than the aging threshold is run before any
+ * command with a higher priority.
+ * <p>
+ * The time spent by the commands in the queues is recorded for each priority.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class PriorityTaskExecutor implements TaskExecutor, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriorityTaskExecutor.class);
+
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    private final String name;
+    private final long agingThreshold;
+    private final Queue<Entry>[] submissionQueues;
+    private final Worker[] workers;
+    /** number of commands waiting in the queues, idle workers wait for a permit */
+    private final Semaphore pendingCommands = new Semaphore(0);
+    private final LatencyHistogram[] queueLatencies = new LatencyHistogram[PRIORITIES.length];
+    private final LongAdder stolenCommandsCount = new LongAdder();
+    private final LongAdder agedCommandsCount = new LongAdder();
+    private volatile boolean closed;
+
+
+    /**
+     * @param name the executor name, used as a prefix for the threads names
+     * @param threadsCount the number of threads running commands
+     * @param agingThreshold the time after which a waiting command is run before the commands with a higher priority
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public PriorityTaskExecutor(final String name, final int threadsCount, final Duration agingThreshold) {
+        super();
+        this.name = Objects.requireNonNull(name);
+        if (threadsCount < 1) {
+            throw new IllegalArgumentException("threads count must be strictly positive");
+        }
+        if (agingThreshold.isNegative() || agingThreshold.isZero()) {
+            throw new IllegalArgumentException("aging threshold must be strictly positive");
+        }
+        this.agingThreshold = agingThreshold.toNanos();
+        submissionQueues = new Queue[PRIORITIES.length];
+        for (int level = 0; level < PRIORITIES.length; level++) {
+            submissionQueues[level] = new ConcurrentLinkedQueue<>();
+            queueLatencies[level] = new LatencyHistogram();
+        }
+        workers = new Worker[threadsCount];
+        for (int index = 0; index < threadsCount; index++) {
+            workers[index] = new Worker(index);
+        }
+        for (final Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the executor has been closed
+     */
+    @Override
+    public void execute(final Task task, final Runnable command) {
+        Objects.requireNonNull(command);
+        if (closed) {
+            throw new RejectedExecutionException("Task executor has been shut down, command has been rejected.");
+        }
+        final TaskPriority priority = (task == null) ? TaskPriority.NORMAL : task.getPriority();
+        final Entry entry = new Entry(command, priority, System.nanoTime());
+        final Queue<Entry> queue;
+        if ((Thread.currentThread() instanceof final Worker worker) && worker.isOwnedBy(this)) {
+            final ConcurrentLinkedDeque<Entry> deque = worker.deques[priority.ordinal()];
+            deque.addFirst(entry);
+            queue = deque;
+        } else {
+            queue = submissionQueues[priority.ordinal()];
+            queue.add(entry);
+        }
+        pendingCommands.release();
+        // the workers may have stopped if the executor has been closed meanwhile : the command is rejected, unless it has already been taken
+        // (if the executor is still open here, a worker woken up by close() will find the command)
+        if (closed && queue.remove(entry)) {
+            throw new RejectedExecutionException("Task executor has been shut down, command has been rejected.");
+        }
+    }
+
+    private Entry take(final Worker worker) {
+        final Entry agedEntry = takeAged(worker);
+        if (agedEntry != null) {
+            agedCommandsCount.increment();
+            return agedEntry;
+        }
+        for (int level = 0; level < PRIORITIES.length; level++) {
+            Entry entry = worker.deques[level].pollFirst();
+            if (entry == null) {
+                entry = submissionQueues[level].poll();
+            }
+            if (entry == null) {
+                entry = steal(worker, level);
+            }
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks for the oldest command of each priority (the highest priority is always served, it can't starve).
+     */
+    private Entry takeAged(final Worker worker) {
+        final long agedEnqueueTime = System.nanoTime() - agingThreshold;
+        for (int level = 1; level < PRIORITIES.length; level++) {
+            final Queue<Entry> queue = submissionQueues[level];
+            Entry oldest = queue.peek();
+            if ((oldest != null) && (oldest.enqueueTime - agedEnqueueTime <= 0)) {
+                oldest = queue.poll();
+                if (oldest != null) {
+                    return oldest;
+                }
+            }
+            for (final Worker owner : workers) {
+                final ConcurrentLinkedDeque<Entry> deque = owner.deques[level];
+                oldest = deque.peekLast();
+                if ((oldest != null) && (oldest.enqueueTime - agedEnqueueTime <= 0)) {
+                    oldest = deque.pollLast();
+                    if (oldest != null) {
+                        return oldest;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Entry steal(final Worker thief, final int level) {
+        for (int offset = 1; offset < workers.length; offset++) {
+            final Worker victim = workers[(thief.index + offset) % workers.length];
+            final Entry entry = victim.deques[level].pollLast();
+            if (entry != null) {
+                stolenCommandsCount.increment();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void run(final Entry entry) {
+        queueLatencies[entry.priority.ordinal()].record(System.nanoTime() - entry.enqueueTime);
+        try {
+            entry.command.run();
+        } catch (final RuntimeException error) {
+            LOGGER.error("An error occured while running a command in {}.", this, error);
+        } finally {
+            // an interruption targeting the finished command must not leak to the next one
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Gets the distribution of the durations waited in the queues by the commands with a given priority.
+     *
+     * @return the snapshot of the queue latencies, in nanoseconds
+     */
+    public LatencySnapshot getQueueLatency(final TaskPriority priority) {
+        return queueLatencies[priority.ordinal()].getSnapshot();
+    }
+
+    /**
+     * Gets the number of commands waiting for a thread.
+     *
+     * @return the number of waiting commands
+     */
+    public int getPendingCount() {
+        return closed ? 0 : pendingCommands.availablePermits();
+    }
+
+    /**
+     * Gets the number of commands taken from the deque of another worker.
+     *
+     * @return the number of stolen commands
+     */
+    public long getStolenCount() {
+        return stolenCommandsCount.sum();
+    }
+
+    /**
+     * Gets the number of commands run before commands with a higher priority because they had waited for too long.
+     *
+     * @return the number of aged commands
+     */
+    public long getAgedCount() {
+        return agedCommandsCount.sum();
+    }
+
+    /**
+     * Stops accepting new commands, the commands already submitted are still executed.
+     * A command submitted concurrently is either executed or rejected.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        // wakes up each worker once, workers stop when they find no command to run
+        pendingCommands.release(workers.length);
+    }
+
+    @Override
+    public String toString() {
+        return "Priority executor [" + name + "]";
+    }
+
+
+    private record Entry(Runnable command, TaskPriority priority, long enqueueTime) {}
+
+
+    private final class Worker extends Thread {
+
+        private final int index;
+        private final ConcurrentLinkedDeque<Entry>[] deques;
+
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Worker(final int index) {
+            super(PriorityTaskExecutor.this.name + "-" + (index + 1));
+            setDaemon(true);
+            this.index = index;
+            deques = new ConcurrentLinkedDeque[PRIORITIES.length];
+            for (int level = 0; level < PRIORITIES.length; level++) {
+                deques[level] = new ConcurrentLinkedDeque<>();
+            }
+        }
+
+        private boolean isOwnedBy(final PriorityTaskExecutor executor) {
+            return PriorityTaskExecutor.this == executor;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                pendingCommands.acquireUninterruptibly();
+                // each permit matches a command that has not been taken yet, but it can take some time to find it
+                Entry entry;
+                while ((entry = take(this)) == null) {
+                    if (closed) {
+                        return;
+                    }
+                    Thread.onSpinWait();
+                }
+                PriorityTaskExecutor.this.run(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.executor.RecurringSchedule.Mode;
+import org.devtoolbox.util.task.listener.TaskCompletionListener;
+import org.devtoolbox.util.task.metrics.LatencyHistogram;
+import org.devtoolbox.util.task.metrics.LatencySnapshot;
+import org.devtoolbox.util.task.status.TaskEndStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Recurring execution of a task, created with {@link TaskTimer#scheduleRecurring(Task, RecurringSchedule, TaskExecutor)}.
+ * <p>
+ * The timer only computes the due times, each run is handed over to a task executor. A run is over once the task is
+ * completed, so a new run never starts while the previous one is still in progress.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class RecurringExecution {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecurringExecution.class);
+
+    private final Task task;
+    private final RecurringSchedule schedule;
+    private final TaskExecutor executor;
+    private final TaskTimer timer;
+    private final TaskCompletionListener completionListener = this::handleRunCompleted;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean delayedRun = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile ScheduledFuture<?> nextRunFuture;
+    /** due time of the next run, in nanoseconds */
+    private volatile long nextRunTime;
+    private volatile long delayedRunTime;
+    private volatile long runStartTime;
+    private final LongAdder runsCount = new LongAdder();
+    private final LongAdder missedRunsCount = new LongAdder();
+    private final LatencyHistogram runDurations = new LatencyHistogram();
+    private final LatencyHistogram startDelays = new LatencyHistogram();
+
+
+    RecurringExecution(final Task task, final RecurringSchedule schedule, final TaskExecutor executor, final TaskTimer timer) {
+        super();
+        this.task = Objects.requireNonNull(task);
+        this.schedule = Objects.requireNonNull(schedule);
+        this.executor = Objects.requireNonNull(executor);
+        this.timer = Objects.requireNonNull(timer);
+    }
+
+    void start() {
+        task.addTaskCompletionListener(completionListener);
+        nextRunTime = System.nanoTime() + schedule.getFirstDelay().toNanos();
+        scheduleNextRun();
+    }
+
+    private void scheduleNextRun() {
+        if (cancelled) {
+            return;
+        }
+        final long delay = Math.max(0, nextRunTime - System.nanoTime());
+        nextRunFuture = timer.schedule(this::handleDueTime, Duration.ofNanos(delay));
+    }
+
+    /**
+     * Invoked by the timer when a run is due.
+     */
+    private void handleDueTime() {
+        if (cancelled) {
+            return;
+        }
+        final long dueTime = nextRunTime;
+        if (schedule.mode() == Mode.FIXED_DELAY) {
+            // the next due time is computed once this run is completed
+            running.set(true);
+            startRun(dueTime);
+            return;
+        }
+        // the next due time is computed from this due time and not from the current time, so that the runs do not drift
+        final long period = schedule.period().toNanos();
+        final long now = System.nanoTime();
+        long nextDueTime = dueTime + period;
+        if (nextDueTime - now <= 0) {
+            // the timer is late, due times that are already over are missed instead of being run in a burst
+            final long lateRuns = (now - dueTime) / period;
+            missedRunsCount.add(lateRuns);
+            nextDueTime = dueTime + ((lateRuns + 1) * period);
+        }
+        nextRunTime = nextDueTime;
+        scheduleNextRun();
+        if (running.compareAndSet(false, true)) {
+            startRun(dueTime);
+        } else if (schedule.overlapPolicy() == OverlapPolicy.SKIP) {
+            LOGGER.debug("Task [{}] is still running, run due at [{}] is skipped.", task.getName(), Long.valueOf(dueTime));
+            missedRunsCount.increment();
+        } else {
+            delayedRunTime = dueTime;
+            if (delayedRun.getAndSet(true)) {
+                missedRunsCount.increment();
+            }
+            // the previous run may have been completed in the meantime
+            if (running.compareAndSet(false, true)) {
+                startDelayedRun();
+            }
+        }
+    }
+
+    private void startDelayedRun() {
+        do {
+            if (delayedRun.getAndSet(false) && (! cancelled)) {
+                startRun(delayedRunTime);
+                return;
+            }
+            running.set(false);
+            // a due time may have been delayed just before the run was released : the timer could not start it, it's started here
+        } while (delayedRun.get() && running.compareAndSet(false, true));
+    }
+
+    private void startRun(final long dueTime) {
+        final long now = System.nanoTime();
+        startDelays.record(Math.max(0, now - dueTime));
+        runStartTime = now;
+        runsCount.increment();
+        try {
+            executor.execute(task, this::runTask);
+        } catch (final RejectedExecutionException error) {
+            LOGGER.warn("Run of task [{}] has been rejected by {}.", task.getName(), executor);
+            runsCount.decrement();
+            missedRunsCount.increment();
+            handleRunCompleted(null);
+        }
+    }
+
+    private void runTask() {
+        try {
+            task.perform();
+        } catch (final RuntimeException error) {
+            LOGGER.error("An error occured while running task [{}].", task.getName(), error);
+            handleRunCompleted(TaskEndStatus.EXECUTION_FAILED);
+        }
+    }
+
+    private void handleRunCompleted(final TaskEndStatus endStatus) {
+        if (! running.get()) {
+            // completion of an execution that has not been started by this schedule
+            return;
+        }
+        final long now = System.nanoTime();
+        if (endStatus != null) {
+            runDurations.record(now - runStartTime);
+        }
+        if (schedule.mode() == Mode.FIXED_DELAY) {
+            running.set(false);
+            nextRunTime = now + schedule.period().toNanos();
+            scheduleNextRun();
+        } else {
+            startDelayedRun();
+        }
+    }
+
+    /**
+     * Stops scheduling new runs. The run in progress (if any) is not cancelled.
+     */
+    public void cancel() {
+        cancelled = true;
+        final ScheduledFuture<?> future = nextRunFuture;
+        if (future != null) {
+            future.cancel(false);
+        }
+        task.removeTaskCompletionListener(completionListener);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public RecurringSchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Gets the number of runs started by this schedule.
+     *
+     * @return the number of runs
+     */
+    public long getRunsCount() {
+        return runsCount.sum();
+    }
+
+    /**
+     * Gets the number of due times that did not lead to a run, because the task was still running or because the timer was late.
+     *
+     * @return the number of missed runs
+     */
+    public long getMissedRunsCount() {
+        return missedRunsCount.sum();
+    }
+
+    /**
+     * Gets the distribution of the durations of the completed runs.
+     *
+     * @return the snapshot of the run durations, in nanoseconds
+     */
+    public LatencySnapshot getRunDurations() {
+        return runDurations.getSnapshot();
+    }
+
+    /**
+     * Gets the distribution of the delays between the due times and the actual starts of the runs.
+     *
+     * @return the snapshot of the start delays, in nanoseconds
+     */
+    public LatencySnapshot getStartDelays() {
+        return startDelays.getSnapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "Recurring execution of [" + task.getName() + "] " + schedule;
+    }
+}
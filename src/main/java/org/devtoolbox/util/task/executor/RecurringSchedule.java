@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Schedule of a task run repeatedly by a {@link TaskTimer}.
+ * <p>
+ * At fixed rate, runs are due at <code>start + n * period</code> : the due times do not drift, whatever the time taken to
+ * start or run the task. At fixed delay, each run is due one period after the completion of the previous run (runs can't overlap).
+ * The first run is delayed by the initial delay plus a random part of up to <code>jitter</code>, so that tasks scheduled
+ * together do not all run at the same time.
+ *
+ * @param mode the way the due times are computed
+ * @param period the period (fixed rate) or the delay between two runs (fixed delay)
+ * @param initialDelay the delay before the first run
+ * @param jitter the max random delay added to the initial delay
+ * @param overlapPolicy the policy applied when a run is due while the previous one is still in progress (fixed rate only)
+ * @author Arnaud Lecollaire
+ */
+public record RecurringSchedule(Mode mode, Duration period, Duration initialDelay, Duration jitter, OverlapPolicy overlapPolicy) {
+
+    public RecurringSchedule {
+        Objects.requireNonNull(mode);
+        Objects.requireNonNull(period);
+        Objects.requireNonNull(initialDelay);
+        Objects.requireNonNull(jitter);
+        Objects.requireNonNull(overlapPolicy);
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("period must be strictly positive");
+        }
+        if (initialDelay.isNegative() || jitter.isNegative()) {
+            throw new IllegalArgumentException("initial delay and jitter can not be negative");
+        }
+    }
+
+    /**
+     * Creates a schedule running the task every period, starting right away and skipping the runs due while the task is still running.
+     */
+    public static RecurringSchedule fixedRate(final Duration period) {
+        return new RecurringSchedule(Mode.FIXED_RATE, period, Duration.ZERO, Duration.ZERO, OverlapPolicy.SKIP);
+    }
+
+    /**
+     * Creates a schedule running the task right away, then once the delay has expired after each completion.
+     */
+    public static RecurringSchedule fixedDelay(final Duration delay) {
+        return new RecurringSchedule(Mode.FIXED_DELAY, delay, Duration.ZERO, Duration.ZERO, OverlapPolicy.SKIP);
+    }
+
+    public RecurringSchedule withInitialDelay(final Duration newInitialDelay) {
+        return new RecurringSchedule(mode, period, newInitialDelay, jitter, overlapPolicy);
+    }
+
+    public RecurringSchedule withJitter(final Duration newJitter) {
+        return new RecurringSchedule(mode, period, initialDelay, newJitter, overlapPolicy);
+    }
+
+    public RecurringSchedule withOverlapPolicy(final OverlapPolicy newOverlapPolicy) {
+        return new RecurringSchedule(mode, period, initialDelay, jitter, newOverlapPolicy);
+    }
+
+    /**
+     * Computes the delay before the first run.
+     *
+     * @return the initial delay, including the random jitter
+     */
+    public Duration getFirstDelay() {
+        if (jitter.isZero()) {
+            return initialDelay;
+        }
+        return initialDelay.plusNanos(ThreadLocalRandom.current().nextLong(jitter.toNanos() + 1));
+    }
+
+
+    /**
+     * Way the due times of the runs are computed.
+     */
+    public enum Mode {
+        /** runs are due at regular intervals from the first run */
+        FIXED_RATE,
+
+        /** each run is due a given delay after the completion of the previous one */
+        FIXED_DELAY;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+
+/**
+ * Policy applied by a {@link ThreadPoolTaskExecutor} when all its threads are busy and its queue is full.
+ *
+ * @author Arnaud Lecollaire
+ */
+public enum RejectionPolicy implements RejectedExecutionHandler {
+    /** the command is rejected, the task is completed with an error */
+    ABORT {
+        @Override
+        public void rejectedExecution(final Runnable command, final ThreadPoolExecutor executor) {
+            throw new RejectedExecutionException("Task executor is saturated, command has been rejected.");
+        }
+    },
+
+    /** the command is run in the thread that submitted it */
+    CALLER_RUNS {
+        @Override
+        public void rejectedExecution(final Runnable command, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Task executor has been shut down, command has been rejected.");
+            }
+            command.run();
+        }
+    },
+
+    /** the submitting thread waits until there is some space in the queue */
+    BLOCK {
+        @Override
+        public void rejectedExecution(final Runnable command, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Task executor has been shut down, command has been rejected.");
+            }
+            try {
+                executor.getQueue().put(command);
+            } catch (final InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the task executor queue.", error);
+            }
+        }
+    };
+}
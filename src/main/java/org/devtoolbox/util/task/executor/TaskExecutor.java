@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.devtoolbox.util.task.Task;
+
+
+/**
+ * Executor used by asynchronous tasks to run their action in the background.
+ *
+ * @author Arnaud Lecollaire
+ */
+@FunctionalInterface
+public interface TaskExecutor {
+
+    /**
+     * Runs the command of a task, usually in another thread.
+     *
+     * @param task the task the command belongs to
+     * @param command the command to run
+     * @throws RejectedExecutionException if the command can not be accepted for execution
+     */
+    void execute(Task task, Runnable command);
+
+    /**
+     * Gets the executor shared by all asynchronous tasks that have not been bound to a specific executor.
+     * Its thread pool is sized to the number of available processors and its threads are kept alive between tasks.
+     *
+     * @return the shared executor
+     */
+    static TaskExecutor shared() {
+        return ThreadPoolTaskExecutor.SHARED;
+    }
+
+    /**
+     * Gets an executor running each command on its own virtual thread, named after the task.
+     *
+     * @return the virtual thread executor
+     * @see VirtualThreadTaskExecutor
+     */
+    static TaskExecutor virtualThreads() {
+        return VirtualThreadTaskExecutor.INSTANCE;
+    }
+
+    /**
+     * Gets an executor running the commands directly in the calling thread.
+     *
+     * @return the caller runs executor
+     */
+    static TaskExecutor callerRuns() {
+        return CallerRunsTaskExecutor.INSTANCE;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.devtoolbox.util.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Timer used to trigger delayed actions (timeouts, retries ...) for any number of tasks with a single thread.
+ * Scheduled actions must be short, they should hand over any long work to a task executor.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class TaskTimer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskTimer.class);
+
+    private static final TaskTimer SHARED = new TaskTimer("task-timer");
+
+    private final String name;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+
+    public TaskTimer(final String name) {
+        super();
+        this.name = Objects.requireNonNull(name);
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // cancelled deadlines are removed right away, most of them are cancelled before they expire
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Gets the timer shared by all tasks.
+     *
+     * @return the shared timer
+     */
+    public static TaskTimer shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedules an action.
+     *
+     * @param action the action to run once the delay has expired
+     * @param delay the delay before running the action
+     * @return a future that can be used to cancel the action
+     */
+    public ScheduledFuture<?> schedule(final Runnable action, final Duration delay) {
+        Objects.requireNonNull(action);
+        return scheduler.schedule(() -> {
+            try {
+                action.run();
+            } catch (final RuntimeException error) {
+                LOGGER.error("An error occured while running a scheduled action in timer [{}].", name, error);
+            }
+        }, delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs a task repeatedly on the shared task executor.
+     *
+     * @param task the task to run
+     * @param schedule the schedule of the runs
+     * @return the recurring execution, used to cancel it and to monitor the runs
+     * @see #scheduleRecurring(Task, RecurringSchedule, TaskExecutor)
+     */
+    public RecurringExecution scheduleRecurring(final Task task, final RecurringSchedule schedule) {
+        return scheduleRecurring(task, schedule, TaskExecutor.shared());
+    }
+
+    /**
+     * Runs a task repeatedly. The timer only triggers the runs, the task is performed by the executor
+     * ({@link TaskExecutor#callerRuns()} can be used for tasks that are already asynchronous).
+     *
+     * @param task the task to run
+     * @param schedule the schedule of the runs
+     * @param executor the executor performing the task
+     * @return the recurring execution, used to cancel it and to monitor the runs
+     */
+    public RecurringExecution scheduleRecurring(final Task task, final RecurringSchedule schedule, final TaskExecutor executor) {
+        final RecurringExecution execution = new RecurringExecution(task, schedule, executor, this);
+        execution.start();
+        return execution;
+    }
+
+    /**
+     * Gets the number of actions waiting for their delay to expire.
+     *
+     * @return the number of pending actions
+     */
+    public int getPendingCount() {
+        return scheduler.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "Task timer [" + name + "]";
+    }
+}
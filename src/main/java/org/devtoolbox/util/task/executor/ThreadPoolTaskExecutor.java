@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.devtoolbox.util.task.Task;
+
+
+/**
+ * Task executor backed by a bounded pool of daemon threads.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class ThreadPoolTaskExecutor implements TaskExecutor, AutoCloseable {
+
+    static final ThreadPoolTaskExecutor SHARED = new ThreadPoolTaskExecutor(
+            "task-executor", Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE, RejectionPolicy.ABORT);
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+
+
+    /**
+     * @param name the executor name, used as a prefix for the threads names
+     * @param threadsCount the max number of threads running commands at the same time
+     * @param queueCapacity the max number of commands waiting for a thread
+     * @param rejectionPolicy the policy applied when all threads are busy and the queue is full
+     */
+    public ThreadPoolTaskExecutor(final String name, final int threadsCount, final int queueCapacity, final RejectionPolicy rejectionPolicy) {
+        super();
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(rejectionPolicy);
+        if (threadsCount < 1) {
+            throw new IllegalArgumentException("threads count must be strictly positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queue capacity can not be negative");
+        }
+        this.name = name;
+        final BlockingQueue<Runnable> queue;
+        if (queueCapacity == 0) {
+            queue = new SynchronousQueue<>();
+        } else if (queueCapacity == Integer.MAX_VALUE) {
+            queue = new LinkedBlockingQueue<>();
+        } else {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+        executor = new ThreadPoolExecutor(threadsCount, threadsCount, 0, TimeUnit.MILLISECONDS, queue, new DaemonThreadFactory(name), rejectionPolicy);
+    }
+
+    @Override
+    public void execute(final Task task, final Runnable command) {
+        Objects.requireNonNull(command);
+        executor.execute(command);
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting new commands, the commands already submitted are still executed.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "Thread pool executor [" + name + "]";
+    }
+
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadsCount = new AtomicInteger();
+        private final String prefix;
+
+
+        private DaemonThreadFactory(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + "-" + threadsCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.executor;
+
+import java.util.Objects;
+
+import org.devtoolbox.util.task.Task;
+
+
+/**
+ * Task executor running each command on a new virtual thread, named after its task.
+ * <p>
+ * Virtual threads are cheap to create and to block, this executor is meant for I/O bound tasks and does not need to be sized.
+ * The task framework never holds a monitor while running an action or notifying listeners, so a blocking action or listener
+ * unmounts its virtual thread instead of pinning the carrier thread. Listeners should keep this property by not blocking
+ * inside their own <code>synchronized</code> blocks (use a {@link java.util.concurrent.locks.ReentrantLock} instead).
+ *
+ * @author Arnaud Lecollaire
+ */
+public class VirtualThreadTaskExecutor implements TaskExecutor {
+
+    static final VirtualThreadTaskExecutor INSTANCE = new VirtualThreadTaskExecutor("task-");
+
+    private final String prefix;
+
+
+    /**
+     * @param prefix the prefix added before the task name to build the thread name
+     */
+    public VirtualThreadTaskExecutor(final String prefix) {
+        super();
+        this.prefix = Objects.requireNonNull(prefix);
+    }
+
+    @Override
+    public void execute(final Task task, final Runnable command) {
+        Objects.requireNonNull(command);
+        Thread.ofVirtual().name(threadName(task)).start(command);
+    }
+
+    protected String threadName(final Task task) {
+        return (task == null) ? prefix : prefix + task.getName();
+    }
+
+    @Override
+    public String toString() {
+        return "Virtual thread executor [" + prefix + "]";
+    }
+}
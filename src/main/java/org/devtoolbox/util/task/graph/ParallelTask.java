@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.graph;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.executor.TaskExecutor;
+
+
+/**
+ * Task running its child tasks in parallel on an executor.
+ * <p>
+ * The children are all started at once, a failing child does not prevent the other children from being executed.
+ * The end status of the parallel task is {@link org.devtoolbox.util.task.status.TaskEndStatus#EXECUTION_FAILED} if any child failed,
+ * otherwise the worst status of the children (timeout, then rejected, then aborted).
+ *
+ * @author Arnaud Lecollaire
+ */
+public class ParallelTask extends TaskGraph {
+
+    /**
+     * Creates a parallel task running its children on the shared executor.
+     */
+    public ParallelTask(final String name, final Task...children) {
+        this(name, TaskExecutor.shared(), children);
+    }
+
+    public ParallelTask(final String name, final TaskExecutor executor, final Task...children) {
+        super(name, executor);
+        for (final Task child : children) {
+            addTask(child);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Parallel task [" + getName() + "]";
+    }
+}
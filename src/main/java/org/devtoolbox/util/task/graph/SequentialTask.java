@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.graph;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.executor.TaskExecutor;
+
+
+/**
+ * Task running its child tasks one after the other, in the order they have been added.
+ * <p>
+ * Each child is started on the executor once the previous child has succeeded. When a child does not succeed, the next children
+ * are not executed and the sequential task ends with the status of this child.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class SequentialTask extends TaskGraph {
+
+    private Task lastTask;
+
+
+    /**
+     * Creates a sequential task running its children on the shared executor.
+     */
+    public SequentialTask(final String name, final Task...children) {
+        this(name, TaskExecutor.shared(), children);
+    }
+
+    public SequentialTask(final String name, final TaskExecutor executor, final Task...children) {
+        super(name, executor);
+        for (final Task child : children) {
+            addTask(child);
+        }
+    }
+
+    /**
+     * Adds a task at the end of the sequence : it will be executed after the previously added task (and after its own dependencies).
+     */
+    @Override
+    public void addTask(final Task task, final Task...dependencies) {
+        Objects.requireNonNull(task);
+        if ((lastTask == null) || (lastTask == task)) {
+            super.addTask(task, dependencies);
+        } else {
+            final Task[] allDependencies = Arrays.copyOf(dependencies, dependencies.length + 1);
+            allDependencies[dependencies.length] = lastTask;
+            super.addTask(task, allDependencies);
+        }
+        lastTask = task;
+    }
+
+    @Override
+    public String toString() {
+        return "Sequential task [" + getName() + "]";
+    }
+}
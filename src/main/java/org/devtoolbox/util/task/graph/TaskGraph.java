@@ -0,0 +1,502 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.graph;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.executor.TaskExecutor;
+import org.devtoolbox.util.task.graph.TaskGraphReport.NodeReport;
+import org.devtoolbox.util.task.implementation.SynchronousTask;
+import org.devtoolbox.util.task.listener.TaskCompletionListener;
+import org.devtoolbox.util.task.status.TaskEndStatus;
+import org.devtoolbox.util.task.status.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Task running a graph of dependent tasks.
+ * <p>
+ * Each task is started on the executor as soon as all its dependencies have been executed successfully, so independent tasks run in
+ * parallel. When a task does not succeed, the tasks depending on it (directly or not) are not executed and are reported as
+ * {@link TaskEndStatus#ABORTED}. The graph ends with the worst end status of its tasks (failed, then timeout, then rejected, then aborted).
+ * The graph itself is a synchronous task : {@link #perform()} returns once all the tasks are completed.
+ * It should not be performed by a thread of its own executor if this executor has a bounded number of threads.
+ * Only the thread performing the graph waits for the tasks, no thread is blocked for each task : the graph is completed by the last
+ * of its tasks to complete. A graph nested in another graph is started without waiting, so it does not hold a thread of the executor.
+ * <p>
+ * The progress of the graph is the number of tasks that are completed or skipped.
+ * <p>
+ * Tasks must be registered before the graph is performed.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class TaskGraph extends SynchronousTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskGraph.class);
+
+    private static final int PENDING = 0;
+    private static final int SUBMITTED = 1;
+    private static final int DONE = 2;
+
+    private final Map<Task, Node> nodes = new LinkedHashMap<>();
+    private volatile TaskExecutor executor;
+    private volatile TaskGraphReport report;
+    private volatile List<Node> runNodes;
+    private volatile AtomicInteger remainingNodes;
+    /** counted down once the current run has been completed, for the thread performing the graph */
+    private volatile CountDownLatch runCompletion;
+    private volatile long startTime;
+
+
+    public TaskGraph(final String name) {
+        this(name, TaskExecutor.shared());
+    }
+
+    public TaskGraph(final String name, final TaskExecutor executor) {
+        super(name);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public TaskExecutor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(final TaskExecutor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Registers a task, with the tasks it depends on. Dependencies that have not been registered yet are registered too.
+     * A task can be registered several times to add dependencies.
+     *
+     * @throws NullPointerException if a task is null
+     * @throws IllegalArgumentException if a dependency would create a cycle
+     * @throws IllegalStateException if the graph is running
+     */
+    public void addTask(final Task task, final Task...dependencies) {
+        Objects.requireNonNull(task);
+        checkNotRunning();
+        final Node node = getOrCreateNode(task);
+        for (final Task dependency : dependencies) {
+            Objects.requireNonNull(dependency);
+            final Node dependencyNode = getOrCreateNode(dependency);
+            if (node.dependencies.contains(dependencyNode)) {
+                continue;
+            }
+            final List<Task> cycle = findDependencyPath(dependencyNode, node);
+            if (cycle != null) {
+                throw new IllegalArgumentException("Task [" + task.getName() + "] can not depend on task [" + dependency.getName()
+                    + "], it would create a cycle : " + toString(cycle) + " -> " + dependency.getName() + ".");
+            }
+            node.dependencies.add(dependencyNode);
+            dependencyNode.dependents.add(node);
+        }
+    }
+
+    private Node getOrCreateNode(final Task task) {
+        return nodes.computeIfAbsent(task, Node::new);
+    }
+
+    private void checkNotRunning() {
+        final TaskStatus status = getStatus();
+        if ((status == TaskStatus.STARTING) || (status == TaskStatus.STARTED) || (status == TaskStatus.TIMEOUT)) {
+            throw new IllegalStateException("Task graph [" + getName() + "] is running, it can not be modified.");
+        }
+    }
+
+    /**
+     * Finds a chain of dependencies from a node to another node.
+     *
+     * @return the tasks of the path, from the source to the target, or null if the target does not depend on the source
+     */
+    private static List<Task> findDependencyPath(final Node source, final Node target) {
+        final Map<Node, Node> previousNodes = new LinkedHashMap<>();
+        final Deque<Node> nodesToVisit = new ArrayDeque<>();
+        nodesToVisit.add(source);
+        previousNodes.put(source, null);
+        while (! nodesToVisit.isEmpty()) {
+            final Node node = nodesToVisit.poll();
+            if (node == target) {
+                final List<Task> path = new ArrayList<>();
+                for (Node pathNode = node; pathNode != null; pathNode = previousNodes.get(pathNode)) {
+                    path.add(pathNode.task);
+                }
+                Collections.reverse(path);
+                return path;
+            }
+            for (final Node dependency : node.dependencies) {
+                if (! previousNodes.containsKey(dependency)) {
+                    previousNodes.put(dependency, node);
+                    nodesToVisit.add(dependency);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the tasks sorted so that each task comes after all its dependencies.
+     *
+     * @return the tasks in topological order
+     * @throws IllegalStateException if the dependencies contain a cycle
+     */
+    public List<Task> getTopologicalOrder() {
+        return sortNodes().stream().map(node -> node.task).toList();
+    }
+
+    private List<Node> sortNodes() {
+        final Map<Node, Integer> remainingDependencies = new LinkedHashMap<>();
+        final Deque<Node> readyNodes = new ArrayDeque<>();
+        for (final Node node : nodes.values()) {
+            remainingDependencies.put(node, node.dependencies.size());
+            if (node.dependencies.isEmpty()) {
+                readyNodes.add(node);
+            }
+        }
+        final List<Node> sortedNodes = new ArrayList<>(nodes.size());
+        while (! readyNodes.isEmpty()) {
+            final Node node = readyNodes.poll();
+            sortedNodes.add(node);
+            for (final Node dependent : node.dependents) {
+                if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+                    readyNodes.add(dependent);
+                }
+            }
+        }
+        if (sortedNodes.size() < nodes.size()) {
+            final Set<Node> cycleNodes = new LinkedHashSet<>(nodes.values());
+            sortedNodes.forEach(cycleNodes::remove);
+            throw new IllegalStateException("Task graph [" + getName() + "] contains a cycle between tasks "
+                + toString(cycleNodes.stream().map(node -> node.task).toList()) + ".");
+        }
+        return sortedNodes;
+    }
+
+    private static String toString(final List<Task> tasks) {
+        return tasks.stream().map(Task::getName).collect(Collectors.joining(" -> ", "[", "]"));
+    }
+
+    /**
+     * Starts the graph, and waits until all its tasks have been completed. If the thread is interrupted while waiting, the graph
+     * is asked to stop and the method returns : the graph is then completed as soon as its running tasks are.
+     */
+    @Override
+    public void perform() {
+        final CountDownLatch previousCompletion = runCompletion;
+        start();
+        final CountDownLatch completion = runCompletion;
+        if (completion == previousCompletion) {
+            // the graph was already running, the request has been ignored
+            return;
+        }
+        try {
+            completion.await();
+        } catch (final InterruptedException error) {
+            LOGGER.warn("Task graph [{}] has been interrupted while waiting for its tasks.", getName());
+            Thread.currentThread().interrupt();
+            setStopAsked(true);
+        }
+    }
+
+    /**
+     * Starts the graph without waiting for its tasks, used for the graphs nested in another graph.
+     */
+    private void start() {
+        super.perform();
+    }
+
+    /**
+     * Runs the graph without holding the thread that performs it : the graph is completed by the last of its tasks to complete.
+     */
+    @Override
+    protected void startTask() {
+        runCompletion = new CountDownLatch(1);
+        setStatus(TaskStatus.STARTED);
+        performAction();
+    }
+
+    /**
+     * Submits the tasks that don't have any dependency, the other tasks are submitted as their dependencies complete.
+     */
+    @Override
+    protected void performAction() {
+        final List<Node> sortedNodes = sortNodes();
+        runNodes = sortedNodes;
+        remainingNodes = new AtomicInteger(sortedNodes.size());
+        startTime = System.nanoTime();
+        for (final Node node : sortedNodes) {
+            node.reset();
+            node.task.addTaskCompletionListener(node.completionListener);
+        }
+        if (sortedNodes.isEmpty()) {
+            finishGraph(getRunGeneration());
+            return;
+        }
+        for (final Node node : sortedNodes) {
+            if (node.dependencies.isEmpty()) {
+                submit(node);
+            }
+        }
+    }
+
+    private void finishGraph(final int runGeneration) {
+        final List<Node> sortedNodes = runNodes;
+        // the concurrent updates of the progress may have been applied out of order
+        updateProgress(sortedNodes.size(), sortedNodes.size());
+        for (final Node node : sortedNodes) {
+            node.task.removeTaskCompletionListener(node.completionListener);
+        }
+        report = buildReport(sortedNodes);
+        LOGGER.info("Task graph [{}] executed in [{}] ms, critical path is {} ([{}] ms).", getName(), report.duration().toMillis(),
+            toString(report.criticalPath()), report.criticalPathDuration().toMillis());
+        final CountDownLatch completion = runCompletion;
+        finishAction(runGeneration);
+        completion.countDown();
+    }
+
+    private void submit(final Node node) {
+        if (! node.state.compareAndSet(PENDING, SUBMITTED)) {
+            return;
+        }
+        if (isStopAsked()) {
+            node.state.set(PENDING);
+            skip(node);
+            return;
+        }
+        try {
+            executor.execute(node.task, () -> run(node));
+        } catch (final RejectedExecutionException error) {
+            LOGGER.error("Task [{}] of graph [{}] has been rejected by the executor.", node.task.getName(), getName(), error);
+            node.startTime = System.nanoTime();
+            complete(node, TaskEndStatus.EXECUTION_FAILED);
+        }
+    }
+
+    private void run(final Node node) {
+        node.startTime = System.nanoTime();
+        node.executed = true;
+        try {
+            if (node.task instanceof final TaskGraph nestedGraph) {
+                // a nested graph is completed by its own tasks, it must not block a thread of the executor while they run
+                nestedGraph.start();
+            } else {
+                node.task.perform();
+            }
+        } catch (final RuntimeException error) {
+            LOGGER.error("Task [{}] of graph [{}] failed.", node.task.getName(), getName(), error);
+            complete(node, TaskEndStatus.EXECUTION_FAILED);
+        }
+    }
+
+    private void complete(final Node node, final TaskEndStatus endStatus) {
+        if (node.state.getAndSet(DONE) == DONE) {
+            return;
+        }
+        node.endTime = System.nanoTime();
+        node.endStatus = endStatus;
+        if (endStatus == TaskEndStatus.EXECUTION_SUCCESS) {
+            for (final Node dependent : node.dependents) {
+                if (dependent.remainingDependencies.decrementAndGet() == 0) {
+                    submit(dependent);
+                }
+            }
+        } else if (! node.dependents.isEmpty()) {
+            sendTaskMessage("Task [{0}] ended with status [{1}], the tasks depending on it will not be executed.", node.task.getName(), endStatus);
+            node.dependents.forEach(this::skip);
+        }
+        // counted last, the graph is completed by the last node and must not be notified by its nodes once completed
+        countDownRemainingNodes();
+    }
+
+    private void countDownRemainingNodes() {
+        final int remainingCount = remainingNodes.decrementAndGet();
+        // the progress of the graph is the number of completed (or skipped) tasks
+        updateProgress(nodes.size() - remainingCount, nodes.size());
+        if (remainingCount == 0) {
+            finishGraph(getRunGeneration());
+        }
+    }
+
+    /**
+     * Marks a node and all the nodes depending on it as not executed.
+     */
+    private void skip(final Node skippedNode) {
+        final Deque<Node> nodesToSkip = new ArrayDeque<>();
+        nodesToSkip.push(skippedNode);
+        while (! nodesToSkip.isEmpty()) {
+            final Node node = nodesToSkip.pop();
+            if (node.state.compareAndSet(PENDING, DONE)) {
+                node.startTime = System.nanoTime();
+                node.endTime = node.startTime;
+                node.endStatus = TaskEndStatus.ABORTED;
+                countDownRemainingNodes();
+                node.dependents.forEach(nodesToSkip::push);
+            }
+        }
+    }
+
+    /**
+     * Asks the graph to stop : the tasks that have not been started yet are not executed, and the running tasks are cancelled.
+     */
+    @Override
+    public void setStopAsked(final boolean stopAsked) {
+        super.setStopAsked(stopAsked);
+        if (stopAsked) {
+            cancelRunningTasks(false);
+        }
+    }
+
+    /**
+     * Cancels the graph. The thread performing the graph is never interrupted, since it only waits for the tasks :
+     * the running tasks are interrupted instead.
+     */
+    @Override
+    public void cancel(final boolean mayInterrupt) {
+        super.cancel(false);
+        if (mayInterrupt) {
+            cancelRunningTasks(true);
+        }
+    }
+
+    private void cancelRunningTasks(final boolean mayInterrupt) {
+        for (final Node node : nodes.values()) {
+            if (node.state.get() == SUBMITTED) {
+                node.task.cancel(mayInterrupt);
+            }
+        }
+    }
+
+    @Override
+    protected TaskEndStatus getExecutionEndStatus() {
+        if (super.getExecutionEndStatus() == TaskEndStatus.EXECUTION_FAILED) {
+            return TaskEndStatus.EXECUTION_FAILED;
+        }
+        boolean timeout = false;
+        boolean rejected = false;
+        boolean aborted = false;
+        for (final Node node : nodes.values()) {
+            final TaskEndStatus nodeEndStatus = node.endStatus;
+            if (nodeEndStatus == TaskEndStatus.EXECUTION_FAILED) {
+                return TaskEndStatus.EXECUTION_FAILED;
+            }
+            timeout |= (nodeEndStatus == TaskEndStatus.TIMEOUT);
+            rejected |= (nodeEndStatus == TaskEndStatus.REJECTED);
+            // tasks that have not been executed (because a dependency did not succeed) count as aborted
+            aborted |= (nodeEndStatus == null) || (nodeEndStatus == TaskEndStatus.ABORTED);
+        }
+        if (timeout) {
+            return TaskEndStatus.TIMEOUT;
+        }
+        if (rejected) {
+            return TaskEndStatus.REJECTED;
+        }
+        return aborted ? TaskEndStatus.ABORTED : TaskEndStatus.EXECUTION_SUCCESS;
+    }
+
+    private TaskGraphReport buildReport(final List<Node> sortedNodes) {
+        final long graphEndTime = System.nanoTime();
+        final List<NodeReport> nodeReports = new ArrayList<>(sortedNodes.size());
+        Node lastNode = null;
+        for (final Node node : sortedNodes) {
+            final long nodeStartTime = (node.startTime == 0) ? graphEndTime : node.startTime;
+            final long nodeEndTime = (node.endTime == 0) ? graphEndTime : node.endTime;
+            nodeReports.add(new NodeReport(node.task, node.endStatus, node.executed,
+                Duration.ofNanos(nodeStartTime - startTime), Duration.ofNanos(nodeEndTime - nodeStartTime)));
+            if (node.executed && ((lastNode == null) || (node.endTime - lastNode.endTime > 0))) {
+                lastNode = node;
+            }
+        }
+        // the critical path goes back from the last task to finish, through the dependency that finished last each time
+        final List<Task> criticalPath = new ArrayList<>();
+        long criticalPathDuration = 0;
+        final Set<Node> visitedNodes = new HashSet<>();
+        for (Node node = lastNode; (node != null) && visitedNodes.add(node); ) {
+            criticalPath.add(node.task);
+            criticalPathDuration += node.endTime - node.startTime;
+            Node previousNode = null;
+            for (final Node dependency : node.dependencies) {
+                if ((previousNode == null) || (dependency.endTime - previousNode.endTime > 0)) {
+                    previousNode = dependency;
+                }
+            }
+            node = previousNode;
+        }
+        Collections.reverse(criticalPath);
+        return new TaskGraphReport(Duration.ofNanos(graphEndTime - startTime), List.copyOf(nodeReports), List.copyOf(criticalPath),
+            Duration.ofNanos(criticalPathDuration));
+    }
+
+    /**
+     * Gets the timings of the last execution of the graph.
+     *
+     * @return the report, or null if the graph has never been performed
+     */
+    public TaskGraphReport getReport() {
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        return "Task graph [" + getName() + "]";
+    }
+
+
+    private final class Node {
+
+        private final Task task;
+        private final Set<Node> dependencies = new LinkedHashSet<>();
+        private final List<Node> dependents = new ArrayList<>();
+        private final AtomicInteger remainingDependencies = new AtomicInteger();
+        private final AtomicInteger state = new AtomicInteger();
+        private final TaskCompletionListener completionListener = endStatus -> complete(this, endStatus);
+        private volatile long startTime;
+        private volatile long endTime;
+        private volatile TaskEndStatus endStatus;
+        private volatile boolean executed;
+
+
+        private Node(final Task task) {
+            this.task = task;
+        }
+
+        private void reset() {
+            remainingDependencies.set(dependencies.size());
+            state.set(PENDING);
+            startTime = 0;
+            endTime = 0;
+            endStatus = null;
+            executed = false;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.graph;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.status.TaskEndStatus;
+
+
+/**
+ * Timings of the last execution of a task graph.
+ *
+ * @param duration the wall-clock duration of the whole graph execution
+ * @param nodes the timings of each task, in topological order
+ * @param criticalPath the chain of dependent tasks that determined the graph duration, from the first to the last task
+ * @param criticalPathDuration the time spent running the tasks of the critical path
+ * @author Arnaud Lecollaire
+ */
+public record TaskGraphReport(Duration duration, List<NodeReport> nodes, List<Task> criticalPath, Duration criticalPathDuration) {
+
+    /**
+     * Timings of a task of the graph.
+     *
+     * @param task the task
+     * @param endStatus the task end status, ABORTED if the task has not been executed because of a dependency
+     * @param executed true if the task has been executed
+     * @param startOffset the delay between the start of the graph and the start of the task
+     * @param duration the task duration, from its start to its completion
+     */
+    public record NodeReport(Task task, TaskEndStatus endStatus, boolean executed, Duration startOffset, Duration duration) {}
+
+}
@@ -16,9 +16,27 @@
  */
 package org.devtoolbox.util.task.implementation;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 import org.devtoolbox.util.task.error.TaskErrorType;
 import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.executor.Bulkhead;
+import org.devtoolbox.util.task.executor.TaskExecutor;
+import org.devtoolbox.util.task.executor.TaskTimer;
+import org.devtoolbox.util.task.metrics.TaskFlightRecorder;
+import org.devtoolbox.util.task.metrics.TaskTimeoutEvent;
 import org.devtoolbox.util.task.status.TaskEndStatus;
+import org.devtoolbox.util.task.status.TaskPriority;
 import org.devtoolbox.util.task.status.TaskStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,52 +53,613 @@ public abstract class AsynchronousTask extends SynchronousTask {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AsynchronousTask.class);
 
-    private final ReadOnlyBooleanWrapper configurationValidProperty = new ReadOnlyBooleanWrapper(true);
-    private final Long timeout = null;
+    private static final Duration DEFAULT_CANCELLATION_GRACE_PERIOD = Duration.ofSeconds(1);
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AsynchronousTask, Queue> PENDING_EVENTS =
+            AtomicReferenceFieldUpdater.newUpdater(AsynchronousTask.class, Queue.class, "pendingEvents");
+    private static final AtomicIntegerFieldUpdater<AsynchronousTask> DELIVERY_SCHEDULED =
+            AtomicIntegerFieldUpdater.newUpdater(AsynchronousTask.class, "deliveryScheduled");
+    private static final AtomicLongFieldUpdater<AsynchronousTask> COALESCED_EVENTS_COUNT =
+            AtomicLongFieldUpdater.newUpdater(AsynchronousTask.class, "coalescedEventsCount");
+
+    private volatile boolean configurationValid = true;
+    private ReadOnlyBooleanWrapper configurationValidProperty;
+    private volatile TaskExecutor executor;
+    private volatile Duration softTimeout;
+    private volatile Duration hardTimeout;
+    private volatile Duration cancellationGracePeriod = DEFAULT_CANCELLATION_GRACE_PERIOD;
+    private volatile ScheduledFuture<?> softTimeoutFuture;
+    private volatile ScheduledFuture<?> hardTimeoutFuture;
+    private volatile EventBatching eventBatching;
+    private volatile RetryPolicy retryPolicy;
+    private volatile Bulkhead bulkhead;
+    private volatile TaskPriority priority = TaskPriority.NORMAL;
+    private volatile int attempt = 1;
+    /** batching state, only allocated once events are batched */
+    private volatile Queue<PendingEvent> pendingEvents;
+    private volatile int deliveryScheduled = 0;
+    private volatile long coalescedEventsCount;
 
 
     public AsynchronousTask(final String name) {
+        this(name, TaskExecutor.shared());
+    }
+
+    public AsynchronousTask(final String name, final TaskExecutor executor) {
         super(name);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public TaskExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Binds this task to another executor, the new executor will be used for the next executions.
+     *
+     * @throws NullPointerException if executor is null
+     */
+    public void setExecutor(final TaskExecutor executor) {
+        this.executor = Objects.requireNonNull(executor);
     }
 
     @Override
     protected void startTask() {
-    	LOGGER.info("Starting background thread for {}.", this);
-        new Thread(() -> AsynchronousTask.super.startTask()).start();
-        if (timeout != null) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(timeout);
-                } catch (final InterruptedException error) {
-                    sendError(TaskErrorType.ERROR_IN_TIMEOUT_MONITOR, error, getName());
-                    return;
+        final int runGeneration = getRunGeneration();
+        attempt = 1;
+        scheduleTimeouts(runGeneration);
+        acquirePermit(runGeneration);
+    }
+
+    /**
+     * Submits the task once its bulkhead (if any) grants a permit. A task waiting for a permit does not hold any thread.
+     */
+    private void acquirePermit(final int runGeneration) {
+        final Bulkhead currentBulkhead = bulkhead;
+        if (currentBulkhead == null) {
+            submitTask(null, runGeneration);
+        } else if (! currentBulkhead.acquire(() -> submitTask(currentBulkhead, runGeneration),
+                () -> handlePermitTimeout(currentBulkhead, runGeneration))) {
+            rejectTask(currentBulkhead, runGeneration, TaskErrorType.BULKHEAD_FULL, currentBulkhead.getName());
+        }
+    }
+
+    private void submitTask(final Bulkhead permitBulkhead, final int runGeneration) {
+        if ((permitBulkhead != null) && (isStopAsked() || (! isCurrentRun(runGeneration)))) {
+            // the task has been cancelled or timed out while waiting for its permit
+            permitBulkhead.release();
+            abortWaitingTask(runGeneration);
+            return;
+        }
+        final TaskExecutor currentExecutor = executor;
+    	LOGGER.info("Submitting {} to {}.", this, currentExecutor);
+        try {
+            currentExecutor.execute(this, () -> runTask(permitBulkhead, runGeneration));
+        } catch (final RejectedExecutionException error) {
+            if (permitBulkhead != null) {
+                permitBulkhead.release();
+            }
+            rejectTask(error, runGeneration);
+        }
+    }
+
+    private void runTask(final Bulkhead permitBulkhead, final int runGeneration) {
+        try {
+            executeRun(runGeneration);
+        } finally {
+            if (permitBulkhead != null) {
+                permitBulkhead.release();
+            }
+        }
+    }
+
+    private void handlePermitTimeout(final Bulkhead permitBulkhead, final int runGeneration) {
+        if (isStopAsked()) {
+            abortWaitingTask(runGeneration);
+            return;
+        }
+        final Duration maxWaitDuration = permitBulkhead.getMaxWaitDuration();
+        rejectTask(permitBulkhead, runGeneration, TaskErrorType.BULKHEAD_TIMEOUT, permitBulkhead.getName(), Long.valueOf(maxWaitDuration.toMillis()));
+    }
+
+    /**
+     * Completes a run cancelled while it was waiting for a permit, unless it has already been completed (by its hard timeout for instance).
+     */
+    private void abortWaitingTask(final int runGeneration) {
+        sendCompletionStatus(runGeneration, () -> {
+            LOGGER.info("Aborting task [{}] ...", getName());
+            setStatus(TaskStatus.STOPPED);
+            return TaskEndStatus.ABORTED;
+        });
+    }
+
+    private void rejectTask(final Bulkhead permitBulkhead, final int runGeneration, final TaskErrorType errorType, final Object...parameters) {
+        if (! isCurrentRun(runGeneration)) {
+            return;
+        }
+        LOGGER.warn("Task [{}] has been rejected by {}.", getName(), permitBulkhead);
+        final Object[] errorParameters = new Object[parameters.length + 1];
+        errorParameters[0] = getName();
+        System.arraycopy(parameters, 0, errorParameters, 1, parameters.length);
+        sendError(errorType, new RejectedExecutionException(permitBulkhead + " is overloaded"), errorParameters);
+        sendCompletionStatus(runGeneration, () -> {
+            setStatus(TaskStatus.STOPPED);
+            return TaskEndStatus.REJECTED;
+        });
+    }
+
+    /**
+     * Schedules a new attempt of the action on the shared timer if the retry policy allows it, no thread is blocked during the delay.
+     */
+    @Override
+    protected boolean retryAction(final TaskException error) {
+        final RetryPolicy policy = retryPolicy;
+        final int failedAttempt = attempt;
+        if ((policy == null) || isStopAsked() || (! policy.shouldRetry(failedAttempt, error))) {
+            return false;
+        }
+        final Duration delay = policy.getDelay(failedAttempt);
+        LOGGER.warn("Attempt [{}] of task [{}] failed, it will be retried in [{}] ms.", failedAttempt, getName(), delay.toMillis());
+        attempt = failedAttempt + 1;
+        setStatus(TaskStatus.STARTING);
+        sendTaskRetryEvent(failedAttempt, delay, error);
+        final int runGeneration = getRunGeneration();
+        TaskTimer.shared().schedule(() -> retryAction(runGeneration), delay);
+        return true;
+    }
+
+    private void retryAction(final int runGeneration) {
+        // the run may have been completed (by a timeout or a cancellation) during the delay
+        if (isCurrentRun(runGeneration)) {
+            acquirePermit(runGeneration);
+        }
+    }
+
+    @Override
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Defines how the action is executed again when it fails. The task is only completed with the
+     * {@link TaskEndStatus#EXECUTION_FAILED} status once the retries are exhausted.
+     *
+     * @param retryPolicy the retry policy, or null to disable retries
+     */
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Defines the priority of the task, used by executors that order the tasks waiting for a thread
+     * (like the {@link org.devtoolbox.util.task.executor.PriorityTaskExecutor}).
+     *
+     * @throws NullPointerException if priority is null
+     */
+    public void setPriority(final TaskPriority priority) {
+        this.priority = Objects.requireNonNull(priority);
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * Limits the number of tasks sharing the same bulkhead running at the same time. The permit is acquired before submitting
+     * the task to its executor (and again for each retry), and released once the action is finished. A task that is rejected
+     * by its bulkhead is completed with the {@link TaskEndStatus#REJECTED} status.
+     *
+     * @param bulkhead the bulkhead, or null to run the task without any limit
+     */
+    public void setBulkhead(final Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * The timeouts cover the whole execution of the task, including its retries : they are cancelled once the task is completed.
+     */
+    @Override
+    protected void handleRunCompleted(final TaskEndStatus endStatus) {
+        cancelTimeouts();
+    }
+
+    private void scheduleTimeouts(final int runGeneration) {
+        final Duration currentSoftTimeout = softTimeout;
+        if (currentSoftTimeout != null) {
+            softTimeoutFuture = TaskTimer.shared().schedule(() -> handleSoftTimeout(runGeneration), currentSoftTimeout);
+        }
+        final Duration currentHardTimeout = hardTimeout;
+        if (currentHardTimeout != null) {
+            hardTimeoutFuture = TaskTimer.shared().schedule(() -> handleHardTimeout(runGeneration), currentHardTimeout);
+        }
+    }
+
+    private void cancelTimeouts() {
+        final ScheduledFuture<?> softFuture = softTimeoutFuture;
+        if (softFuture != null) {
+            softFuture.cancel(false);
+            softTimeoutFuture = null;
+        }
+        final ScheduledFuture<?> hardFuture = hardTimeoutFuture;
+        if (hardFuture != null) {
+            hardFuture.cancel(false);
+            hardTimeoutFuture = null;
+        }
+    }
+
+    /**
+     * Invoked by the shared timer when the task is still running after its soft timeout.
+     * The status is changed to {@link TaskStatus#TIMEOUT}, but the task can still finish normally.
+     */
+    protected void handleSoftTimeout(final int runGeneration) {
+        try {
+            // the status is only changed if the action is still running, a finished task keeps its status
+            if (isCurrentRun(runGeneration) && compareAndSetStatus(TaskStatus.STARTED, TaskStatus.TIMEOUT)) {
+                LOGGER.warn("Task [{}] is still running after its soft timeout [{}].", getName(), softTimeout);
+                if (TaskFlightRecorder.isRecording()) {
+                    TaskTimeoutEvent.emit(getName(), getExecutingThread(), false, softTimeout);
+                }
+            }
+        } catch (final RuntimeException error) {
+            sendError(TaskErrorType.ERROR_IN_TIMEOUT_MONITOR, error, getName());
+        }
+    }
+
+    /**
+     * Invoked by the shared timer when the task is still running after its hard timeout.
+     * The task is asked to stop, its thread is interrupted and it's completed right away with the {@link TaskEndStatus#TIMEOUT} status.
+     * A task whose action has already finished (stopping or stopped) is left to its worker, which completes it with its own end status.
+     */
+    protected void handleHardTimeout(final int runGeneration) {
+        try {
+            // the run is only claimed once the status has been changed, so that a worker already running afterAction() completes the run itself
+            if ((! isCurrentRun(runGeneration)) || (! changeToTimeoutStatus())) {
+                return;
+            }
+            // a completion sent by the action in the meantime wins, and the run is only released once its action has exited
+            sendCompletionStatus(runGeneration, () -> {
+                LOGGER.warn("Task [{}] is still running after its hard timeout [{}], it is stopped.", getName(), hardTimeout);
+                if (TaskFlightRecorder.isRecording()) {
+                    TaskTimeoutEvent.emit(getName(), getExecutingThread(), true, hardTimeout);
                 }
-                if (getStatus() == TaskStatus.STARTED) {
-                    setStatus(TaskStatus.TIMEOUT);
-                    setStopAsked(true);
+                setStopAsked(true);
+                if (isWorkerInRun(runGeneration)) {
+                    interruptExecution();
+                } else {
+                    // still waiting for a thread (or for its next attempt) : no worker will stop the task
+                    setStatus(TaskStatus.STOPPED);
                 }
-            }).start();
+                return TaskEndStatus.TIMEOUT;
+            });
+        } catch (final RuntimeException error) {
+            sendError(TaskErrorType.ERROR_IN_TIMEOUT_MONITOR, error, getName());
+        }
+    }
+
+    /**
+     * Changes the status to {@link TaskStatus#TIMEOUT} with a CAS, only if the action has not finished yet.
+     *
+     * @return false if the action has finished (the task is stopping or stopped)
+     */
+    private boolean changeToTimeoutStatus() {
+        TaskStatus currentStatus;
+        do {
+            currentStatus = getStatus();
+            if (currentStatus == TaskStatus.TIMEOUT) {
+                return true;
+            }
+            if ((currentStatus != TaskStatus.STARTING) && (currentStatus != TaskStatus.STARTED)) {
+                return false;
+            }
+        } while (! compareAndSetStatus(currentStatus, TaskStatus.TIMEOUT));
+        return true;
+    }
+
+    /**
+     * Cancels the task. If the action does not stop within the cancellation grace period, the task is completed
+     * right away with the {@link TaskEndStatus#ABORTED} status (the action keeps running until it checks the stop request).
+     */
+    @Override
+    public void cancel(final boolean mayInterrupt) {
+        super.cancel(mayInterrupt);
+        final Duration gracePeriod = cancellationGracePeriod;
+        if ((gracePeriod != null) && isRunning()) {
+            final int runGeneration = getRunGeneration();
+            TaskTimer.shared().schedule(() -> handleCancellationGracePeriod(runGeneration), gracePeriod);
+        }
+    }
+
+    private boolean isRunning() {
+        final TaskStatus status = getStatus();
+        return (status != TaskStatus.STOPPED) && (status != TaskStatus.INITIALIZED) && (status != TaskStatus.CREATED);
+    }
+
+    private void handleCancellationGracePeriod(final int runGeneration) {
+        if (isStopAsked() && isCurrentRun(runGeneration)) {
+            LOGGER.warn("Task [{}] is still running after its cancellation grace period [{}], it is completed.", getName(), cancellationGracePeriod);
+            // the run is only released once its action has exited, the task can't be performed again in the meantime
+            sendCompletionStatus(runGeneration, TaskEndStatus.ABORTED);
+        }
+    }
+
+    public Duration getCancellationGracePeriod() {
+        return cancellationGracePeriod;
+    }
+
+    /**
+     * Defines the max delay between a cancellation and the completion of the task, 1 second by default.
+     *
+     * @param cancellationGracePeriod the grace period, or null to wait for the action to stop
+     */
+    public void setCancellationGracePeriod(final Duration cancellationGracePeriod) {
+        this.cancellationGracePeriod = cancellationGracePeriod;
+    }
+
+    public Duration getSoftTimeout() {
+        return softTimeout;
+    }
+
+    /**
+     * Defines the duration after which the task status is changed to {@link TaskStatus#TIMEOUT} if it's still running.
+     * This is only a warning, the task is not stopped.
+     *
+     * @param softTimeout the soft timeout, or null to disable it
+     */
+    public void setSoftTimeout(final Duration softTimeout) {
+        this.softTimeout = softTimeout;
+    }
+
+    public Duration getHardTimeout() {
+        return hardTimeout;
+    }
+
+    /**
+     * Defines the duration after which the task is stopped and completed with the {@link TaskEndStatus#TIMEOUT} status if it's still running.
+     *
+     * @param hardTimeout the hard timeout, or null to disable it
+     */
+    public void setHardTimeout(final Duration hardTimeout) {
+        this.hardTimeout = hardTimeout;
+    }
+
+    protected void rejectTask(final RejectedExecutionException error, final int runGeneration) {
+        if (! isCurrentRun(runGeneration)) {
+            return;
+        }
+        LOGGER.warn("Task [{}] has been rejected by its executor.", getName());
+        sendError(TaskErrorType.TASK_EXECUTION_REJECTED, error, getName());
+        sendCompletionStatus(runGeneration, () -> {
+            setStatus(TaskStatus.STOPPED);
+            return TaskEndStatus.EXECUTION_FAILED;
+        });
+    }
+
+    @Override
+    protected void sendTaskRetryEvent(final int failedAttempt, final Duration delay, final TaskException error) {
+        final EventBatching batching = eventBatching;
+        if (batching != null) {
+            enqueueEvent(new RetryEvent(failedAttempt, delay, error), batching);
+        } else if (isInResultThread()) {
+            super.sendTaskRetryEvent(failedAttempt, delay, error);
+        } else {
+            executeInResultThread(() -> super.sendTaskRetryEvent(failedAttempt, delay, error));
         }
     }
 
     @Override
     public void sendTaskMessage(final String message, final Object...parameters) {
-        internalExecuteInResultThread(() -> super.sendTaskMessage(message, parameters));
+        final EventBatching batching = eventBatching;
+        if (batching != null) {
+            enqueueEvent(new MessageEvent(message, parameters), batching);
+        } else if (isInResultThread()) {
+            super.sendTaskMessage(message, parameters);
+        } else {
+            executeInResultThread(() -> super.sendTaskMessage(message, parameters));
+        }
     }
 
     @Override
     protected void sendTaskStatusEvent(final TaskStatus oldStatus, final TaskStatus newStatus) {
-        internalExecuteInResultThread(() -> super.sendTaskStatusEvent(oldStatus, newStatus));
+        final EventBatching batching = eventBatching;
+        if (batching != null) {
+            enqueueEvent(new StatusEvent(oldStatus, newStatus), batching);
+        } else if (isInResultThread()) {
+            super.sendTaskStatusEvent(oldStatus, newStatus);
+        } else {
+            executeInResultThread(() -> super.sendTaskStatusEvent(oldStatus, newStatus));
+        }
+    }
+
+    @Override
+    protected void sendTaskProgressEvent(final long workDone, final long totalWork) {
+        final EventBatching batching = eventBatching;
+        if (batching != null) {
+            enqueueEvent(new ProgressEvent(workDone, totalWork), batching);
+        } else if (isInResultThread()) {
+            super.sendTaskProgressEvent(workDone, totalWork);
+        } else {
+            executeInResultThread(() -> super.sendTaskProgressEvent(workDone, totalWork));
+        }
     }
 
     @Override
     protected void sendTaskCompletionEvent(final TaskEndStatus executionStatus) {
-        internalExecuteInResultThread(() -> super.sendTaskCompletionEvent(executionStatus));
+        final EventBatching batching = eventBatching;
+        if (batching != null) {
+            enqueueEvent(new CompletionEvent(executionStatus), batching);
+        } else if (isInResultThread()) {
+            super.sendTaskCompletionEvent(executionStatus);
+        } else {
+            executeInResultThread(() -> super.sendTaskCompletionEvent(executionStatus));
+        }
     }
 
     @Override
     protected void sendTaskException(final TaskException exception) {
-        internalExecuteInResultThread(() -> super.sendTaskException(exception));
+        final EventBatching batching = eventBatching;
+        if (batching != null) {
+            enqueueEvent(new ErrorEvent(exception), batching);
+        } else if (isInResultThread()) {
+            super.sendTaskException(exception);
+        } else {
+            executeInResultThread(() -> super.sendTaskException(exception));
+        }
+    }
+
+    public EventBatching getEventBatching() {
+        return eventBatching;
+    }
+
+    /**
+     * Enables the batched delivery of events to the result thread. It should be defined before the task is started.
+     *
+     * @param eventBatching the batching configuration, or null to deliver each event with its own hop to the result thread
+     */
+    public void setEventBatching(final EventBatching eventBatching) {
+        this.eventBatching = eventBatching;
+    }
+
+    /**
+     * Gets the number of events that have been dropped from the batches because of coalescing.
+     *
+     * @return the count of coalesced events
+     */
+    public long getCoalescedEventsCount() {
+        return coalescedEventsCount;
+    }
+
+    /**
+     * Queues an event for the next batch.
+     *
+     * @param batching the batching configuration read by the caller, it may have been disabled since
+     */
+    private void enqueueEvent(final PendingEvent event, final EventBatching batching) {
+        getPendingEvents().offer(event);
+        if (isInResultThread()) {
+            // events already waiting for the result thread must be delivered first
+            deliverPendingEvents();
+            return;
+        }
+        if (! DELIVERY_SCHEDULED.compareAndSet(this, 0, 1)) {
+            return;
+        }
+        final Duration maxLatency = batching.maxLatency();
+        if (maxLatency.isZero()) {
+            executeInResultThread(this::deliverPendingEvents);
+        } else {
+            TaskTimer.shared().schedule(() -> executeInResultThread(this::deliverPendingEvents), maxLatency);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Queue<PendingEvent> getPendingEvents() {
+        Queue<PendingEvent> queue = pendingEvents;
+        if (queue == null) {
+            queue = new ConcurrentLinkedQueue<>();
+            if (! PENDING_EVENTS.compareAndSet(this, null, queue)) {
+                queue = pendingEvents;
+            }
+        }
+        return queue;
+    }
+
+    private void deliverPendingEvents() {
+        // reset before draining the queue : events added from now on schedule another delivery
+        deliveryScheduled = 0;
+        final Queue<PendingEvent> queue = getPendingEvents();
+        final List<PendingEvent> batch = new ArrayList<>();
+        PendingEvent event;
+        while ((event = queue.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        final EventBatching currentBatching = eventBatching;
+        if (currentBatching != null) {
+            coalesce(batch, currentBatching);
+        }
+        for (final PendingEvent pendingEvent : batch) {
+            if (pendingEvent == null) {
+                continue;
+            }
+            switch (pendingEvent) {
+            case StatusEvent statusEvent -> super.sendTaskStatusEvent(statusEvent.oldStatus(), statusEvent.newStatus());
+            case MessageEvent messageEvent -> super.sendTaskMessage(messageEvent.message(), messageEvent.parameters());
+            case ProgressEvent progressEvent -> super.sendTaskProgressEvent(progressEvent.workDone(), progressEvent.totalWork());
+            case CompletionEvent completionEvent -> super.sendTaskCompletionEvent(completionEvent.endStatus());
+            case ErrorEvent errorEvent -> super.sendTaskException(errorEvent.exception());
+            case RetryEvent retryEvent -> super.sendTaskRetryEvent(retryEvent.failedAttempt(), retryEvent.delay(), retryEvent.error());
+            }
+        }
+    }
+
+    /**
+     * Replaces the coalesced events of a batch by null, the order of the remaining events is kept.
+     * Only the latest progress of a batch is delivered, and consecutive status changes are merged into the last one of their sequence.
+     */
+    private void coalesce(final List<PendingEvent> batch, final EventBatching batching) {
+        int lastProgressIndex = -1;
+        int lastStatusIndex = -1;
+        TaskStatus firstOldStatus = null;
+        int messagesCount = 0;
+        for (int index = 0; index < batch.size(); index++) {
+            final PendingEvent event = batch.get(index);
+            if (event instanceof StatusEvent statusEvent && batching.latestStatusOnly()) {
+                if ((lastStatusIndex >= 0) && (lastStatusIndex == index - 1)) {
+                    batch.set(lastStatusIndex, null);
+                    COALESCED_EVENTS_COUNT.incrementAndGet(this);
+                } else {
+                    // any other event ends the sequence : a status change is never delivered after the events that followed it
+                    mergeStatusChanges(batch, lastStatusIndex, firstOldStatus);
+                    firstOldStatus = statusEvent.oldStatus();
+                }
+                lastStatusIndex = index;
+            } else if (event instanceof ProgressEvent) {
+                if (lastProgressIndex >= 0) {
+                    batch.set(lastProgressIndex, null);
+                    COALESCED_EVENTS_COUNT.incrementAndGet(this);
+                }
+                lastProgressIndex = index;
+            } else if (event instanceof MessageEvent) {
+                messagesCount++;
+            }
+        }
+        mergeStatusChanges(batch, lastStatusIndex, firstOldStatus);
+        int droppedMessagesCount = messagesCount - batching.maxMessages();
+        for (int index = 0; (index < batch.size()) && (droppedMessagesCount > 0); index++) {
+            if (batch.get(index) instanceof MessageEvent) {
+                batch.set(index, null);
+                COALESCED_EVENTS_COUNT.incrementAndGet(this);
+                droppedMessagesCount--;
+            }
+        }
+    }
+
+    /**
+     * Replaces the last status change of a sequence by a change from the first old status of the sequence, or drops it if the sequence
+     * went back to its first status.
+     */
+    private void mergeStatusChanges(final List<PendingEvent> batch, final int lastStatusIndex, final TaskStatus firstOldStatus) {
+        if (lastStatusIndex < 0) {
+            return;
+        }
+        final StatusEvent lastStatusEvent = (StatusEvent) batch.get(lastStatusIndex);
+        if (firstOldStatus == lastStatusEvent.newStatus()) {
+            batch.set(lastStatusIndex, null);
+            COALESCED_EVENTS_COUNT.incrementAndGet(this);
+        } else if (firstOldStatus != lastStatusEvent.oldStatus()) {
+            batch.set(lastStatusIndex, new StatusEvent(firstOldStatus, lastStatusEvent.newStatus()));
+        }
     }
 
     protected void internalExecuteInResultThread(final Runnable runnable) {
@@ -95,24 +674,88 @@ public abstract class AsynchronousTask extends SynchronousTask {
 
     protected abstract void executeInResultThread(final Runnable runnable);
 
+    /**
+     * The JavaFX property is created on the first call (from the JavaFX thread), the validity of the configuration is a plain field until then.
+     */
     public ReadOnlyBooleanProperty configurationValidProperty() {
-        return configurationValidProperty.getReadOnlyProperty();
+        return getConfigurationValidProperty().getReadOnlyProperty();
+    }
+
+    private ReadOnlyBooleanWrapper getConfigurationValidProperty() {
+        if (configurationValidProperty == null) {
+            configurationValidProperty = new ReadOnlyBooleanWrapper(configurationValid);
+            // the field stays the reference for the task threads, including when the property is bound
+            configurationValidProperty.addListener((observable, oldValue, newValue) -> configurationValid = newValue.booleanValue());
+        }
+        return configurationValidProperty;
     }
 
     protected void bindConfigurationValidTo(final ObservableValue<? extends Boolean> value) {
-        configurationValidProperty.bind(value);
+        getConfigurationValidProperty().bind(value);
     }
 
     public boolean isConfigurationValid() {
-        return configurationValidProperty.get();
+        return configurationValid;
     }
 
     public void setConfigurationValid(final boolean configurationValid) {
-        configurationValidProperty.set(configurationValid);
+        if (configurationValidProperty == null) {
+            this.configurationValid = configurationValid;
+        } else {
+            configurationValidProperty.set(configurationValid);
+        }
+    }
+
+    /**
+     * Creates an asynchronous task running the action with the given executor.
+     * Events are sent to the listeners directly from the thread running the task.
+     */
+    public static AsynchronousTask create(final String name, final TaskExecutor executor, final Runnable action) {
+        Objects.requireNonNull(action);
+        return new AsynchronousTask(name, executor) {
+            @Override
+            protected void performAction() {
+                action.run();
+            }
+
+            @Override
+            protected boolean isInResultThread() {
+                return true;
+            }
+
+            @Override
+            protected void executeInResultThread(final Runnable runnable) {
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * Creates an asynchronous task running the action on its own virtual thread, named after the task.
+     * Listeners are notified from this virtual thread without any lock held by the task, so they can block safely (see
+     * {@link org.devtoolbox.util.task.executor.VirtualThreadTaskExecutor} about pinning).
+     */
+    public static AsynchronousTask createOnVirtualThread(final String name, final Runnable action) {
+        return create(name, TaskExecutor.virtualThreads(), action);
     }
 
     @Override
     public String toString() {
     	return "Asynchronous task [" + getName() + "]";
     }
+
+
+    private sealed interface PendingEvent permits StatusEvent, MessageEvent, ProgressEvent, CompletionEvent, ErrorEvent, RetryEvent {}
+
+    private record StatusEvent(TaskStatus oldStatus, TaskStatus newStatus) implements PendingEvent {}
+
+    private record MessageEvent(String message, Object[] parameters) implements PendingEvent {}
+
+    private record ProgressEvent(long workDone, long totalWork) implements PendingEvent {}
+
+    private record CompletionEvent(TaskEndStatus endStatus) implements PendingEvent {}
+
+    private record ErrorEvent(TaskException exception) implements PendingEvent {}
+
+    private record RetryEvent(int failedAttempt, Duration delay, TaskException error) implements PendingEvent {}
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.implementation;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Cancellation state of a task execution.
+ * <p>
+ * Actions can poll the token cheaply (a volatile read) in their loops, or register callbacks to unblock a resource
+ * (close a socket, cancel a future ...) when the task is cancelled. A token is only valid for one execution of its task.
+ *
+ * @author Arnaud Lecollaire
+ */
+public final class CancellationToken {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CancellationToken.class);
+
+    private static final AtomicIntegerFieldUpdater<CancellationToken> CANCELLED =
+            AtomicIntegerFieldUpdater.newUpdater(CancellationToken.class, "cancelled");
+    private static final ListenerRegistry<CancellationToken, Runnable> CALLBACKS = new ListenerRegistry<>(
+            AtomicReferenceFieldUpdater.newUpdater(CancellationToken.class, Object.class, "callbacks"), new Runnable[0]);
+
+    private volatile Object callbacks = CALLBACKS.empty();
+    private volatile int cancelled = 0;
+
+
+    CancellationToken() {
+        super();
+    }
+
+    public boolean isCancelled() {
+        return cancelled != 0;
+    }
+
+    /**
+     * @throws CancellationException if the token has been cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled != 0) {
+            throw new CancellationException("task has been cancelled");
+        }
+    }
+
+    /**
+     * Registers a callback run once when the token is cancelled, or right away if it has already been cancelled.
+     * Callbacks are run by the cancelling thread, they must be short and must not block.
+     *
+     * @throws NullPointerException if callback is null
+     */
+    public void addCallback(final Runnable callback) {
+        Objects.requireNonNull(callback);
+        CALLBACKS.add(this, callback);
+        // the removal ensures the callback is run only once if the token is cancelled concurrently
+        if ((cancelled != 0) && CALLBACKS.remove(this, callback)) {
+            runCallback(callback);
+        }
+    }
+
+    /**
+     * Removes a callback, usually once the resource it protects has been released.
+     *
+     * @return false if the callback is not registered (anymore)
+     */
+    public boolean removeCallback(final Runnable callback) {
+        Objects.requireNonNull(callback);
+        return CALLBACKS.remove(this, callback);
+    }
+
+    /**
+     * Cancels the token and runs the registered callbacks.
+     *
+     * @return false if the token had already been cancelled
+     */
+    boolean cancel() {
+        if (! CANCELLED.compareAndSet(this, 0, 1)) {
+            return false;
+        }
+        final Object registeredCallbacks = callbacks;
+        final int callbacksCount = CALLBACKS.size(registeredCallbacks);
+        for (int index = 0; index < callbacksCount; index++) {
+            final Runnable callback = CALLBACKS.get(registeredCallbacks, index);
+            if (CALLBACKS.remove(this, callback)) {
+                runCallback(callback);
+            }
+        }
+        return true;
+    }
+
+    private static void runCallback(final Runnable callback) {
+        try {
+            callback.run();
+        } catch (final RuntimeException error) {
+            LOGGER.error("An error occured while running a cancellation callback.", error);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Cancellation token [" + (isCancelled() ? "cancelled" : "active") + "]";
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.implementation;
+
+import java.time.Duration;
+import java.util.Objects;
+
+
+/**
+ * Configuration of the batched delivery of events to the result thread of an {@link AsynchronousTask}.
+ * <p>
+ * Events are collected and delivered by batches, with a single hop to the result thread per batch. Superseded status changes and
+ * old messages can be dropped (coalesced) from a batch, only the latest progress is kept, completion and error events are always delivered.
+ *
+ * @param latestStatusOnly if true, consecutive status changes of a batch are merged into one change (from the first old status to the last
+ *        new status), status changes separated by other events are all delivered
+ * @param maxMessages the max number of messages delivered per batch, only the latest messages are kept
+ * @param maxLatency the max duration an event waits before its batch is delivered
+ * @author Arnaud Lecollaire
+ */
+public record EventBatching(boolean latestStatusOnly, int maxMessages, Duration maxLatency) {
+
+    /** batching without coalescing, each batch is delivered as soon as possible */
+    public static final EventBatching DEFAULT = new EventBatching(false, Integer.MAX_VALUE, Duration.ZERO);
+
+
+    public EventBatching {
+        Objects.requireNonNull(maxLatency);
+        if (maxMessages < 0) {
+            throw new IllegalArgumentException("max messages count can not be negative");
+        }
+        if (maxLatency.isNegative()) {
+            throw new IllegalArgumentException("max latency can not be negative");
+        }
+    }
+
+    public EventBatching withLatestStatusOnly(final boolean newLatestStatusOnly) {
+        return new EventBatching(newLatestStatusOnly, maxMessages, maxLatency);
+    }
+
+    public EventBatching withMaxMessages(final int newMaxMessages) {
+        return new EventBatching(latestStatusOnly, newMaxMessages, maxLatency);
+    }
+
+    public EventBatching withMaxLatency(final Duration newMaxLatency) {
+        return new EventBatching(latestStatusOnly, maxMessages, newMaxLatency);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.implementation;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+
+/**
+ * Lock-free, copy-on-write registry of listeners, stored in a single field of its owner.
+ * <p>
+ * The field holds a shared empty array when no listener is registered, the listener itself when there is only one listener,
+ * and an immutable array otherwise : an idle task does not allocate anything for its listeners. The field is replaced (with a CAS)
+ * on each change, so notifications can iterate over a snapshot without any lock or iterator, while listeners are added or removed
+ * from other threads (or by a listener itself).
+ * <p>
+ * A registry is stateless, a single instance is shared by all the owners of the field.
+ *
+ * @param <T> the owner type
+ * @param <L> the listener type
+ * @author Arnaud Lecollaire
+ */
+final class ListenerRegistry<T, L> {
+
+    private final AtomicReferenceFieldUpdater<T, Object> field;
+    private final L[] empty;
+
+
+    /**
+     * @param field the updater of the field holding the listeners
+     * @param empty an empty array of listeners, used as the value of the field when there is no listener
+     */
+    ListenerRegistry(final AtomicReferenceFieldUpdater<T, Object> field, final L[] empty) {
+        super();
+        if (empty.length != 0) {
+            throw new IllegalArgumentException("initial listeners array must be empty");
+        }
+        this.field = Objects.requireNonNull(field);
+        this.empty = empty;
+    }
+
+    /**
+     * Gets the value of the field when no listener is registered.
+     *
+     * @return the shared empty array
+     */
+    Object empty() {
+        return empty;
+    }
+
+    /**
+     * Gets the number of listeners in a snapshot of the field.
+     */
+    int size(final Object listeners) {
+        return (listeners instanceof final Object[] array) ? array.length : 1;
+    }
+
+    /**
+     * Gets a listener from a snapshot of the field.
+     *
+     * @param listeners the snapshot
+     * @param index the index of the listener, lower than the size of the snapshot
+     * @return the listener
+     */
+    @SuppressWarnings("unchecked")
+    L get(final Object listeners, final int index) {
+        return (L) ((listeners instanceof final Object[] array) ? array[index] : listeners);
+    }
+
+    void add(final T owner, final L listener) {
+        Objects.requireNonNull(listener);
+        Object current;
+        Object updated;
+        do {
+            current = field.get(owner);
+            if (current instanceof final Object[] array) {
+                if (array.length == 0) {
+                    updated = listener;
+                } else {
+                    final Object[] updatedArray = Arrays.copyOf(array, array.length + 1);
+                    updatedArray[array.length] = listener;
+                    updated = updatedArray;
+                }
+            } else {
+                final L[] updatedArray = Arrays.copyOf(empty, 2);
+                updatedArray[0] = get(current, 0);
+                updatedArray[1] = listener;
+                updated = updatedArray;
+            }
+        } while (! field.compareAndSet(owner, current, updated));
+    }
+
+    /**
+     * Removes the first registration of a listener.
+     *
+     * @return false if the listener was not registered
+     */
+    boolean remove(final T owner, final L listener) {
+        Objects.requireNonNull(listener);
+        Object current;
+        Object updated;
+        do {
+            current = field.get(owner);
+            if (current instanceof final Object[] array) {
+                final int index = indexOf(array, listener);
+                if (index < 0) {
+                    return false;
+                }
+                if (array.length == 2) {
+                    // back to the inline storage
+                    updated = array[1 - index];
+                } else {
+                    final Object[] updatedArray = Arrays.copyOf(array, array.length - 1);
+                    System.arraycopy(array, index + 1, updatedArray, index, array.length - index - 1);
+                    updated = updatedArray;
+                }
+            } else if (current.equals(listener)) {
+                updated = empty;
+            } else {
+                return false;
+            }
+        } while (! field.compareAndSet(owner, current, updated));
+        return true;
+    }
+
+    private static int indexOf(final Object[] array, final Object element) {
+        for (int index = 0; index < array.length; index++) {
+            if (array[index].equals(element)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.implementation;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import org.devtoolbox.util.task.error.TaskException;
+
+
+/**
+ * Retry policy of an {@link AsynchronousTask} whose action fails.
+ * <p>
+ * The delay before the n-th retry is <code>initialDelay * multiplier^(n-1)</code>, capped to <code>maxDelay</code>, then reduced by a
+ * random part of up to <code>jitter</code> (between 0 and 1) of its value, so that tasks failing together do not retry together.
+ *
+ * @param maxAttempts the max number of executions of the action, including the first one
+ * @param initialDelay the delay before the first retry
+ * @param multiplier the factor applied to the delay after each retry
+ * @param maxDelay the max delay between two attempts
+ * @param jitter the max random part of the delay, between 0 and 1
+ * @param retryOn the predicate selecting the errors that can be retried
+ * @author Arnaud Lecollaire
+ */
+public record RetryPolicy(int maxAttempts, Duration initialDelay, double multiplier, Duration maxDelay, double jitter,
+        Predicate<TaskException> retryOn) {
+
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofMinutes(1);
+    private static final double DEFAULT_MULTIPLIER = 2;
+    private static final double DEFAULT_JITTER = 0.5;
+
+
+    public RetryPolicy {
+        Objects.requireNonNull(initialDelay);
+        Objects.requireNonNull(maxDelay);
+        Objects.requireNonNull(retryOn);
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("max attempts must be at least 1");
+        }
+        if (initialDelay.isNegative() || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("retry delays can not be negative");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("delay multiplier can not be lower than 1");
+        }
+        if ((jitter < 0) || (jitter > 1)) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Creates a policy retrying any error with an exponential backoff (the delay is doubled after each retry, up to 1 minute)
+     * and a jitter of 50%.
+     */
+    public static RetryPolicy exponentialBackoff(final int maxAttempts, final Duration initialDelay) {
+        return new RetryPolicy(maxAttempts, initialDelay, DEFAULT_MULTIPLIER, DEFAULT_MAX_DELAY, DEFAULT_JITTER, error -> true);
+    }
+
+    public RetryPolicy withMaxAttempts(final int newMaxAttempts) {
+        return new RetryPolicy(newMaxAttempts, initialDelay, multiplier, maxDelay, jitter, retryOn);
+    }
+
+    public RetryPolicy withMultiplier(final double newMultiplier) {
+        return new RetryPolicy(maxAttempts, initialDelay, newMultiplier, maxDelay, jitter, retryOn);
+    }
+
+    public RetryPolicy withMaxDelay(final Duration newMaxDelay) {
+        return new RetryPolicy(maxAttempts, initialDelay, multiplier, newMaxDelay, jitter, retryOn);
+    }
+
+    public RetryPolicy withJitter(final double newJitter) {
+        return new RetryPolicy(maxAttempts, initialDelay, multiplier, maxDelay, newJitter, retryOn);
+    }
+
+    public RetryPolicy withRetryOn(final Predicate<TaskException> newRetryOn) {
+        return new RetryPolicy(maxAttempts, initialDelay, multiplier, maxDelay, jitter, newRetryOn);
+    }
+
+    /**
+     * Checks if an attempt that failed can be retried.
+     *
+     * @param failedAttempt the number of the attempt that failed, starting at 1
+     * @param error the error of the attempt
+     * @return true if the action should be executed again
+     */
+    public boolean shouldRetry(final int failedAttempt, final TaskException error) {
+        return (failedAttempt < maxAttempts) && retryOn.test(error);
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     *
+     * @param failedAttempt the number of the attempt that failed, starting at 1
+     * @return the delay, including the random jitter
+     */
+    public Duration getDelay(final int failedAttempt) {
+        final double baseDelay = Math.min(initialDelay.toNanos() * Math.pow(multiplier, failedAttempt - 1.0), maxDelay.toNanos());
+        final double delay = baseDelay * (1 - (jitter * ThreadLocalRandom.current().nextDouble()));
+        return Duration.ofNanos((long) delay);
+    }
+}
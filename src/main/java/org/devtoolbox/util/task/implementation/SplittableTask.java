@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.devtoolbox.util.task.status.TaskEndStatus;
+
+
+/**
+ * Synchronous task dividing its work across the threads of a {@link ForkJoinPool}.
+ * <p>
+ * The work is recursively split with {@link #split(Object)} until the parts are small enough, each part is then computed with
+ * {@link #computeLeaf(Object)} and the results are merged back with {@link #combine(Object, Object)}. Idle threads of the pool steal
+ * the parts that have not been computed yet, so the work is balanced on all the cores.
+ * <p>
+ * The task keeps the lifecycle of a synchronous task : the thread calling {@link #perform()} waits for the whole computation.
+ * The progress is aggregated from the size of the computed parts, and the parts that have not been computed yet are skipped
+ * as soon as a stop is asked (the task then ends with the {@link TaskEndStatus#ABORTED} status and no result).
+ *
+ * @param <W> the type of the work (and of its parts)
+ * @param <R> the type of the result
+ * @author Arnaud Lecollaire
+ */
+public abstract class SplittableTask<W, R> extends SynchronousTask {
+
+    private final ForkJoinPool pool;
+    private final AtomicLong computedWork = new AtomicLong();
+    private volatile long totalWorkSize;
+    private volatile boolean computationInterrupted;
+    private volatile R result;
+
+
+    /**
+     * Creates a task running its computation on the common fork/join pool.
+     */
+    protected SplittableTask(final String name) {
+        this(name, ForkJoinPool.commonPool());
+    }
+
+    protected SplittableTask(final String name, final ForkJoinPool pool) {
+        super(name);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Gets the whole work to perform, called once per execution.
+     *
+     * @return the work
+     */
+    protected abstract W getWork();
+
+    /**
+     * Splits a part of the work.
+     *
+     * @param work the part to split
+     * @return the sub-parts, or an empty list if the part is small enough to be computed directly
+     */
+    protected abstract List<W> split(W work);
+
+    /**
+     * Computes a part of the work that has not been split.
+     *
+     * @param work the part to compute
+     * @return the result of this part
+     */
+    protected abstract R computeLeaf(W work);
+
+    /**
+     * Merges the results of two parts of the work, the left part being before the right one in the list returned by {@link #split(Object)}.
+     *
+     * @return the result of both parts
+     */
+    protected abstract R combine(R left, R right);
+
+    /**
+     * Gets the size of a part of the work, used to compute the progress. The size of a part must be the sum of the sizes of its sub-parts.
+     *
+     * @param work a part of the work
+     * @return the size of the part, or -1 if unknown (the progress is then not updated)
+     */
+    protected long getWorkSize(final W work) {
+        return -1;
+    }
+
+    @Override
+    protected void performAction() {
+        result = null;
+        computationInterrupted = false;
+        computedWork.set(0);
+        final W work = getWork();
+        final long total = getWorkSize(work);
+        totalWorkSize = total;
+        result = pool.invoke(new SplitAction(work));
+        if ((total >= 0) && (! computationInterrupted)) {
+            // the leaves update the progress concurrently, their last update may not be the highest one
+            updateProgress(total, total);
+        }
+    }
+
+    /**
+     * Gets the result of the last execution.
+     *
+     * @return the result, or null if the computation has not been completed
+     */
+    public R getResult() {
+        return result;
+    }
+
+    private boolean shouldSkip() {
+        if (isStopAsked()) {
+            computationInterrupted = true;
+        }
+        return computationInterrupted;
+    }
+
+    private void addComputedWork(final W work) {
+        final long total = totalWorkSize;
+        if (total >= 0) {
+            final long size = getWorkSize(work);
+            if (size > 0) {
+                updateProgress(computedWork.addAndGet(size), total);
+            }
+        }
+    }
+
+
+    private final class SplitAction extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient W work;
+
+
+        private SplitAction(final W work) {
+            super();
+            this.work = work;
+        }
+
+        @Override
+        protected R compute() {
+            if (shouldSkip()) {
+                return null;
+            }
+            final List<W> parts = split(work);
+            if ((parts == null) || parts.isEmpty()) {
+                return computeLeaf();
+            }
+            final List<SplitAction> actions = new ArrayList<>(parts.size());
+            for (final W part : parts) {
+                actions.add(new SplitAction(part));
+            }
+            ForkJoinTask.invokeAll(actions);
+            if (shouldSkip()) {
+                return null;
+            }
+            R combinedResult = actions.get(0).join();
+            for (int index = 1; index < actions.size(); index++) {
+                combinedResult = combine(combinedResult, actions.get(index).join());
+            }
+            return combinedResult;
+        }
+
+        private R computeLeaf() {
+            try {
+                final R leafResult = SplittableTask.this.computeLeaf(work);
+                addComputedWork(work);
+                return leafResult;
+            } catch (final RuntimeException error) {
+                // the other parts are useless once a part has failed
+                computationInterrupted = true;
+                throw error;
+            }
+        }
+    }
+}
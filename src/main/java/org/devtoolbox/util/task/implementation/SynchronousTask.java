@@ -16,24 +16,38 @@
  */
 package org.devtoolbox.util.task.implementation;
 
-import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.devtoolbox.util.task.Task;
 import org.devtoolbox.util.task.error.TaskErrorType;
 import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.event.TaskEvent;
+import org.devtoolbox.util.task.event.TaskEventBus;
 import org.devtoolbox.util.task.listener.TaskCompletionListener;
 import org.devtoolbox.util.task.listener.TaskListener;
+import org.devtoolbox.util.task.message.TaskMessage;
+import org.devtoolbox.util.task.metrics.TaskDispatchEvent;
+import org.devtoolbox.util.task.metrics.TaskErrorEvent;
+import org.devtoolbox.util.task.metrics.TaskExecutionEvent;
+import org.devtoolbox.util.task.metrics.TaskFlightRecorder;
+import org.devtoolbox.util.task.metrics.TaskMetrics;
+import org.devtoolbox.util.task.metrics.TaskPhase;
+import org.devtoolbox.util.task.metrics.TaskStatusEvent;
 import org.devtoolbox.util.task.status.TaskEndStatus;
 import org.devtoolbox.util.task.status.TaskStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
-import javafx.beans.property.ReadOnlyObjectWrapper;
 
 
 /**
@@ -43,13 +57,65 @@ public abstract class SynchronousTask implements Task {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SynchronousTask.class);
 
-    private final Collection<TaskListener> taskListeners = new ArrayList<>();
-    private final Collection<TaskCompletionListener> completionListeners = new ArrayList<>();
+    private static final AtomicIntegerFieldUpdater<SynchronousTask> RUNNING_GENERATION =
+            AtomicIntegerFieldUpdater.newUpdater(SynchronousTask.class, "runningGeneration");
+    private static final AtomicIntegerFieldUpdater<SynchronousTask> COMPLETED_GENERATION =
+            AtomicIntegerFieldUpdater.newUpdater(SynchronousTask.class, "completedGeneration");
+    private static final AtomicIntegerFieldUpdater<SynchronousTask> WORKER_GENERATION =
+            AtomicIntegerFieldUpdater.newUpdater(SynchronousTask.class, "workerGeneration");
+    private static final AtomicIntegerFieldUpdater<SynchronousTask> PROGRESS_VERSION =
+            AtomicIntegerFieldUpdater.newUpdater(SynchronousTask.class, "progressVersion");
+    private static final AtomicLongFieldUpdater<SynchronousTask> LAST_PROGRESS_NOTIFICATION =
+            AtomicLongFieldUpdater.newUpdater(SynchronousTask.class, "lastProgressNotification");
+    private static final AtomicReferenceFieldUpdater<SynchronousTask, CancellationToken> CANCELLATION_TOKEN =
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, CancellationToken.class, "cancellationToken");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<SynchronousTask, CompletableFuture> COMPLETION =
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, CompletableFuture.class, "completion");
+    private static final AtomicReferenceFieldUpdater<SynchronousTask, TaskStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, TaskStatus.class, "status");
+    private static final AtomicReferenceFieldUpdater<SynchronousTask, TaskProperties> PROPERTIES =
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, TaskProperties.class, "properties");
+    private static final AtomicReferenceFieldUpdater<SynchronousTask, TaskEventPublisher> EVENT_PUBLISHER =
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, TaskEventPublisher.class, "eventPublisher");
+    private static final AtomicReferenceFieldUpdater<SynchronousTask, Thread> EXECUTING_THREAD =
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, Thread.class, "executingThread");
+    private static final ListenerRegistry<SynchronousTask, TaskListener> TASK_LISTENERS = new ListenerRegistry<>(
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, Object.class, "taskListeners"), new TaskListener[0]);
+    private static final ListenerRegistry<SynchronousTask, TaskCompletionListener> COMPLETION_LISTENERS = new ListenerRegistry<>(
+            AtomicReferenceFieldUpdater.newUpdater(SynchronousTask.class, Object.class, "completionListeners"), new TaskCompletionListener[0]);
+    private static final TaskMetrics METRICS = TaskMetrics.shared();
+    private static final long DEFAULT_PROGRESS_NOTIFICATION_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    /** marker set while a thread is being interrupted, so that it can't be released (and reused) in the meantime */
+    private static final Thread INTERRUPTING = new Thread("interrupting");
 
     private final String name;
-    private ReadOnlyObjectWrapper<TaskStatus> statusProperty = new ReadOnlyObjectWrapper<>(TaskStatus.CREATED);
-    private boolean executionFailed = false;
-    private boolean stopAsked = false;
+    /** registered listeners, see {@link ListenerRegistry} */
+    private volatile Object taskListeners = TASK_LISTENERS.empty();
+    private volatile Object completionListeners = COMPLETION_LISTENERS.empty();
+    private volatile TaskStatus status = TaskStatus.CREATED;
+    private volatile boolean executionFailed = false;
+    private volatile boolean stopAsked = false;
+    private volatile CancellationToken cancellationToken;
+    private volatile long submissionTime;
+    /** generation of the current run, 0 when the task is not running */
+    private volatile int runningGeneration = 0;
+    /** generation of the last completed run */
+    private volatile int completedGeneration = 0;
+    /** generation of the run whose action is being executed by a worker thread, 0 if none */
+    private volatile int workerGeneration = 0;
+    private volatile TaskEndStatus endStatus;
+    private volatile CompletableFuture<TaskEndStatus> completion;
+    private volatile Thread executingThread;
+    private volatile long workDone = -1;
+    private volatile long totalWork = -1;
+    /** odd while the progress is being written, so that the work done and the total work are always read as a consistent pair */
+    private volatile int progressVersion = 0;
+    private volatile long notifiedWorkDone = -1;
+    private volatile long lastProgressNotification;
+    private volatile long progressNotificationInterval = DEFAULT_PROGRESS_NOTIFICATION_INTERVAL;
+    private volatile TaskProperties properties;
+    private volatile TaskEventPublisher eventPublisher;
 
 
     public SynchronousTask(final String name) {
@@ -61,93 +127,554 @@ public abstract class SynchronousTask implements Task {
 
     protected void initializeTask() {}
 
+    @Override
     public String getName() {
         return name;
     }
 
+    @Override
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * The JavaFX properties of the task are created on the first call.
+     */
     @Override
     public ReadOnlyObjectProperty<TaskStatus> statusProperty() {
-    	return statusProperty.getReadOnlyProperty();
+    	return getProperties().statusProperty();
+    }
+
+    /**
+     * The JavaFX properties of the task are created on the first call.
+     */
+    @Override
+    public ReadOnlyDoubleProperty progressProperty() {
+        return getProperties().progressProperty();
+    }
+
+    private TaskProperties getProperties() {
+        TaskProperties currentProperties = properties;
+        if (currentProperties == null) {
+            currentProperties = new TaskProperties(status, getProgress());
+            if (! PROPERTIES.compareAndSet(this, null, currentProperties)) {
+                return properties;
+            }
+            // the state may have changed while the properties were created
+            currentProperties.setStatus(status);
+            currentProperties.setProgress(getProgress());
+        }
+        return currentProperties;
+    }
+
+    /**
+     * The publisher is created on the first call. Until it has subscribers, the task doesn't create any event for it.
+     */
+    @Override
+    public TaskEventPublisher events() {
+        final TaskEventPublisher currentPublisher = eventPublisher;
+        if (currentPublisher != null) {
+            return currentPublisher;
+        }
+        EVENT_PUBLISHER.compareAndSet(this, null, new TaskEventPublisher(name));
+        return eventPublisher;
+    }
+
+    private TaskEventPublisher activeEventPublisher() {
+        final TaskEventPublisher currentPublisher = eventPublisher;
+        return ((currentPublisher != null) && currentPublisher.hasSubscribers()) ? currentPublisher : null;
+    }
+
+    /**
+     * Sends an event to the subscribers of the task and to the shared event bus. Callers only create the event if one of them needs it.
+     */
+    private static void publishEvent(final TaskEvent event, final TaskEventPublisher publisher, final boolean publishedOnBus) {
+        if (publisher != null) {
+            publisher.publish(event);
+        }
+        if (publishedOnBus) {
+            TaskEventBus.shared().publish(event);
+        }
+    }
+
+    @Override
+    public double getProgress() {
+        int version;
+        double progress;
+        do {
+            version = getStableProgressVersion();
+            progress = computeProgress(workDone, totalWork);
+        } while (version != progressVersion);
+        return progress;
+    }
+
+    /**
+     * Waits until no thread is writing the progress.
+     *
+     * @return the version of the progress, to check once it has been read that it has not been updated meanwhile
+     */
+    private int getStableProgressVersion() {
+        int version;
+        while (((version = progressVersion) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return version;
+    }
+
+    private void writeProgress(final long done, final long total) {
+        int version;
+        do {
+            version = getStableProgressVersion();
+        } while (! PROGRESS_VERSION.compareAndSet(this, version, version + 1));
+        totalWork = total;
+        workDone = done;
+        progressVersion = version + 2;
+    }
+
+    private static double computeProgress(final long done, final long total) {
+        if ((done < 0) || (total <= 0)) {
+            return -1;
+        }
+        return Math.min(1, (double) done / total);
+    }
+
+    public long getWorkDone() {
+        return workDone;
+    }
+
+    public long getTotalWork() {
+        return totalWork;
+    }
+
+    public Duration getProgressNotificationInterval() {
+        return Duration.ofNanos(progressNotificationInterval);
+    }
+
+    /**
+     * Defines the min interval between two progress notifications, intermediate progress updates are not notified.
+     *
+     * @param interval the min interval between two notifications, zero to notify every update
+     */
+    public void setProgressNotificationInterval(final Duration interval) {
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("progress notification interval can not be negative");
+        }
+        progressNotificationInterval = interval.toNanos();
+    }
+
+    /**
+     * Updates the task progress. This method is cheap enough to be called for each processed item : the listeners and the
+     * progress property are only notified if the notification interval has expired since the last notification (or if the work is done).
+     * While the total is unknown, all the updates are throttled.
+     *
+     * @param done the amount of work done, or -1 if unknown
+     * @param total the total amount of work, or -1 if unknown
+     */
+    protected void updateProgress(final long done, final long total) {
+        writeProgress(done, total);
+        final long now = System.nanoTime();
+        final long lastNotification = lastProgressNotification;
+        final boolean workCompleted = (total >= 0) && (done >= total);
+        if ((! workCompleted) && (now - lastNotification < progressNotificationInterval)) {
+            return;
+        }
+        if (LAST_PROGRESS_NOTIFICATION.compareAndSet(this, lastNotification, now)) {
+            notifyProgress();
+        }
+    }
+
+    /**
+     * Notifies the latest progress if it has not been notified yet (because of the notification interval).
+     */
+    protected void flushProgress() {
+        if (workDone != notifiedWorkDone) {
+            lastProgressNotification = System.nanoTime();
+            notifyProgress();
+        }
+    }
+
+    private void notifyProgress() {
+        int version;
+        long done;
+        long total;
+        do {
+            version = getStableProgressVersion();
+            done = workDone;
+            total = totalWork;
+        } while (version != progressVersion);
+        notifiedWorkDone = done;
+        final TaskProperties currentProperties = properties;
+        if (currentProperties != null) {
+            currentProperties.setProgress(computeProgress(done, total));
+        }
+        if (TASK_LISTENERS.size(taskListeners) > 0) {
+            sendTaskProgressEvent(done, total);
+        }
+    }
+
+    protected void sendTaskProgressEvent(final long done, final long total) {
+        final long dispatchStart = startPhase();
+        final Object listeners = taskListeners;
+        final int listenersCount = TASK_LISTENERS.size(listeners);
+        final TaskDispatchEvent dispatchEvent = startDispatchEvent("progress", listenersCount);
+        for (int index = 0; index < listenersCount; index++) {
+            try {
+                TASK_LISTENERS.get(listeners, index).handleTaskProgress(done, total);
+            } catch (final RuntimeException error) {
+                sendError(TaskErrorType.LISTENER_NOTIFICATION_FAILED, error, name);
+            }
+        }
+        completeDispatchEvent(dispatchEvent);
+        endPhase(TaskPhase.LISTENER_DISPATCH, dispatchStart);
+    }
+
+    protected void sendTaskRetryEvent(final int failedAttempt, final Duration delay, final TaskException error) {
+        final long dispatchStart = startPhase();
+        final Object listeners = taskListeners;
+        final int listenersCount = TASK_LISTENERS.size(listeners);
+        final TaskDispatchEvent dispatchEvent = startDispatchEvent("retry", listenersCount);
+        for (int index = 0; index < listenersCount; index++) {
+            try {
+                TASK_LISTENERS.get(listeners, index).handleTaskRetry(failedAttempt, delay, error);
+            } catch (final RuntimeException listenerError) {
+                sendError(TaskErrorType.LISTENER_NOTIFICATION_FAILED, listenerError, name);
+            }
+        }
+        completeDispatchEvent(dispatchEvent);
+        endPhase(TaskPhase.LISTENER_DISPATCH, dispatchStart);
     }
 
     protected boolean isStopAsked() {
         return stopAsked;
     }
 
+    /**
+     * Asks the task to stop, the action is expected to check {@link #isStopAsked()} (or the cancellation token) regularly.
+     * An action stopped on request ends with the {@link TaskEndStatus#ABORTED} status.
+     */
     public void setStopAsked(final boolean stopAsked) {
         this.stopAsked = stopAsked;
+        if (stopAsked) {
+            final CancellationToken token = cancellationToken;
+            if (token != null) {
+                token.cancel();
+            }
+        }
+    }
+
+    /**
+     * Cancels the current execution. The action runs in the thread that called {@link #perform()}, so that's the thread
+     * interrupted if mayInterrupt is true.
+     */
+    @Override
+    public void cancel(final boolean mayInterrupt) {
+        LOGGER.info("Cancelling task [{}] ...", name);
+        setStopAsked(true);
+        if (mayInterrupt) {
+            interruptExecution();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<TaskEndStatus> completion() {
+        CompletableFuture<TaskEndStatus> future = completion;
+        if (future == null) {
+            // the future is only created if someone waits for the task
+            future = new CompletableFuture<>();
+            if (! COMPLETION.compareAndSet(this, null, future)) {
+                future = completion;
+            } else {
+                final TaskEndStatus currentEndStatus = endStatus;
+                if (currentEndStatus != null) {
+                    future.complete(currentEndStatus);
+                }
+            }
+        }
+        // a copy is returned so that callers can't complete the future of the task
+        return future.copy();
+    }
+
+    /**
+     * Gets the cancellation token of the current execution, cancelled when a stop is asked.
+     *
+     * @return the cancellation token
+     */
+    protected CancellationToken getCancellationToken() {
+        CancellationToken token = cancellationToken;
+        if (token == null) {
+            // the token is only created for the actions that need it
+            token = new CancellationToken();
+            if (! CANCELLATION_TOKEN.compareAndSet(this, null, token)) {
+                return cancellationToken;
+            }
+            if (stopAsked) {
+                token.cancel();
+            }
+        }
+        return token;
     }
 
+    /**
+     * Changes the status of the task, with a CAS so that concurrent changes (from a timeout for instance) are all validated.
+     *
+     * @throws IllegalStateException if the task can't go from its current status to the new one
+     * @see TaskStatus#canChangeTo(TaskStatus)
+     */
     public void setStatus(final TaskStatus newStatus) {
-    	final TaskStatus oldStatus = statusProperty.get();
-        if (oldStatus == newStatus) {
-            return;
+        Objects.requireNonNull(newStatus);
+        TaskStatus oldStatus;
+        do {
+            oldStatus = status;
+            if (oldStatus == newStatus) {
+                return;
+            }
+            if (! oldStatus.canChangeTo(newStatus)) {
+                throw new IllegalStateException("Task [" + name + "] can not go from status [" + oldStatus + "] to [" + newStatus + "].");
+            }
+        } while (! STATUS.compareAndSet(this, oldStatus, newStatus));
+        handleStatusChange(oldStatus, newStatus);
+    }
+
+    /**
+     * Changes the status of the task only if it's still the expected one, so that a status computed from a previous read
+     * (by a timeout for instance) can't override a concurrent change.
+     *
+     * @param expectedStatus the status the task must still have
+     * @param newStatus the new status
+     * @return false if the task does not have the expected status anymore
+     * @throws IllegalStateException if the task can't go from the expected status to the new one
+     */
+    protected boolean compareAndSetStatus(final TaskStatus expectedStatus, final TaskStatus newStatus) {
+        Objects.requireNonNull(expectedStatus);
+        Objects.requireNonNull(newStatus);
+        if (expectedStatus == newStatus) {
+            return status == expectedStatus;
+        }
+        if (! expectedStatus.canChangeTo(newStatus)) {
+            throw new IllegalStateException("Task [" + name + "] can not go from status [" + expectedStatus + "] to [" + newStatus + "].");
+        }
+        if (! STATUS.compareAndSet(this, expectedStatus, newStatus)) {
+            return false;
+        }
+        handleStatusChange(expectedStatus, newStatus);
+        return true;
+    }
+
+    private void handleStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Changing status for task [{}] from [{}] to [{}].", name, oldStatus, newStatus);
+        }
+        final TaskProperties currentProperties = properties;
+        if (currentProperties != null) {
+            currentProperties.setStatus(status);
+        }
+        if (TaskFlightRecorder.isRecording()) {
+            TaskStatusEvent.emit(name, oldStatus, newStatus);
+        }
+        final TaskEventPublisher publisher = activeEventPublisher();
+        final boolean publishedOnBus = TaskEventBus.acceptedBySharedBus(name, newStatus);
+        if ((publisher != null) || publishedOnBus) {
+            publishEvent(new TaskEvent.StatusChange(name, oldStatus, newStatus), publisher, publishedOnBus);
         }
-        LOGGER.info("Changing status for task [{}] from [{}] to [{}].", name, oldStatus, newStatus);
-        statusProperty.set(newStatus);
         sendStatusChange(oldStatus, newStatus);
     }
 
     protected void sendStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
         Objects.requireNonNull(oldStatus);
         Objects.requireNonNull(newStatus);
-        final int listenersCount = taskListeners.size();
+        final int listenersCount = TASK_LISTENERS.size(taskListeners);
         if (listenersCount == 0) {
             return;
         }
-        LOGGER.info("Task [{}] sending status change event from [{}] to [{}] to [{}] listeners ...", name, oldStatus, newStatus, listenersCount);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Task [{}] sending status change event from [{}] to [{}] to [{}] listeners ...", name, oldStatus, newStatus, listenersCount);
+        }
         sendTaskStatusEvent(oldStatus, newStatus);
     }
 
     protected void sendTaskStatusEvent(final TaskStatus oldStatus, final TaskStatus newStatus) {
-        notifyTaskListeners(listener -> {
+        final long dispatchStart = startPhase();
+        final Object listeners = taskListeners;
+        final int listenersCount = TASK_LISTENERS.size(listeners);
+        final TaskDispatchEvent dispatchEvent = startDispatchEvent("status", listenersCount);
+        for (int index = 0; index < listenersCount; index++) {
             try {
-                listener.handleTaskStatusChange(oldStatus, newStatus);
+                TASK_LISTENERS.get(listeners, index).handleTaskStatusChange(oldStatus, newStatus);
             } catch (final RuntimeException error) {
                 sendError(TaskErrorType.LISTENER_NOTIFICATION_FAILED, error, name);
             }
-        });
+        }
+        completeDispatchEvent(dispatchEvent);
+        endPhase(TaskPhase.LISTENER_DISPATCH, dispatchStart);
     }
 
+    /**
+     * Sends a message to the listeners. The message is formatted with {@link java.text.MessageFormat}, but only if it's actually
+     * needed by a listener (or by the logs). The parameters must be immutable, or at least not modified once the message has been sent.
+     */
     public void sendTaskMessage(final String message, final Object...parameters) {
         Objects.requireNonNull(message);
-        final String formattedMessage;
-        if ((parameters != null) && (parameters.length > 0)) {
-            formattedMessage = MessageFormat.format(message, parameters);
-        } else {
-            formattedMessage = message;
+        final TaskEventPublisher publisher = activeEventPublisher();
+        final boolean publishedOnBus = TaskEventBus.acceptedBySharedBus(name, status);
+        final int listenersCount = TASK_LISTENERS.size(taskListeners);
+        if ((listenersCount == 0) && (publisher == null) && (! publishedOnBus)) {
+            // nobody listens, the message is only created to be logged
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Message received for task [{}], but no listeners are registered. Message is [{}].", name, new TaskMessage(message, parameters));
+            }
+            return;
+        }
+        final TaskMessage taskMessage = new TaskMessage(message, parameters);
+        if ((publisher != null) || publishedOnBus) {
+            publishEvent(new TaskEvent.Message(name, taskMessage), publisher, publishedOnBus);
         }
-        final int listenersCount = taskListeners.size();
         if (listenersCount == 0) {
-            LOGGER.info("Message received for task [{}], but no listeners are registered. Message is [{}].", name, formattedMessage);
             return;
         }
-        LOGGER.info("Task [{}] sending event for message [{}] to [{}] listeners ...", name, formattedMessage, listenersCount);
-        sendTaskMessageEvent(formattedMessage);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Task [{}] sending event for message [{}] to [{}] listeners ...", name, taskMessage, listenersCount);
+        }
+        sendTaskMessageEvent(taskMessage);
     }
 
     protected void sendTaskMessageEvent(final String message) {
-        notifyTaskListeners(listener -> {
+        sendTaskMessageEvent(new TaskMessage(message));
+    }
+
+    protected void sendTaskMessageEvent(final TaskMessage message) {
+        final long dispatchStart = startPhase();
+        final Object listeners = taskListeners;
+        final int listenersCount = TASK_LISTENERS.size(listeners);
+        final TaskDispatchEvent dispatchEvent = startDispatchEvent("message", listenersCount);
+        for (int index = 0; index < listenersCount; index++) {
             try {
-                listener.handleTaskMessage(message);
+                TASK_LISTENERS.get(listeners, index).handleTaskMessageTemplate(message);
             } catch (final RuntimeException error) {
                 sendError(TaskErrorType.LISTENER_NOTIFICATION_FAILED, error, name);
             }
-        });
+        }
+        completeDispatchEvent(dispatchEvent);
+        endPhase(TaskPhase.LISTENER_DISPATCH, dispatchStart);
     }
 
+    /**
+     * Gets the generation of the current run, incremented each time the task is performed.
+     * Actions scheduled for a run (timeouts, retries ...) keep its generation, so that they are ignored once a new run has started.
+     *
+     * @return the generation of the current run, or 0 if the task is not running
+     */
+    protected final int getRunGeneration() {
+        return runningGeneration;
+    }
+
+    /**
+     * Checks if a run is still the current one and has not been completed yet.
+     *
+     * @param runGeneration the generation of the run
+     * @return true if the run is in progress
+     */
+    protected final boolean isCurrentRun(final int runGeneration) {
+        return (runGeneration != 0) && (runningGeneration == runGeneration) && (completedGeneration != runGeneration);
+    }
+
+    /**
+     * Completes the current run.
+     *
+     * @see #sendCompletionStatus(int, TaskEndStatus)
+     */
     protected void sendCompletionStatus(final TaskEndStatus executionStatus) {
+        sendCompletionStatus(runningGeneration, executionStatus);
+    }
+
+    /**
+     * Completes a run, unless it has already been completed : late completions (of a previous run for instance) are ignored.
+     *
+     * @param runGeneration the generation of the completed run
+     * @param executionStatus the end status of the run
+     * @return true if the run has been completed by this call
+     */
+    protected boolean sendCompletionStatus(final int runGeneration, final TaskEndStatus executionStatus) {
         Objects.requireNonNull(executionStatus);
-        final int listenersCount = completionListeners.size();
+        if (! claimCompletion(runGeneration)) {
+            LOGGER.info("Task [{}] has already been completed, completion status [{}] is ignored.", name, executionStatus);
+            return false;
+        }
+        completeRun(runGeneration, executionStatus);
+        return true;
+    }
+
+    /**
+     * Completes a run, unless it has already been completed. The end status is only computed (and the status of the task only
+     * changed by the supplier) once the run has been claimed, so that a concurrent completion can't be overridden.
+     *
+     * @param runGeneration the generation of the completed run
+     * @param executionStatus the supplier of the end status, invoked only if the run is completed by this call
+     * @return true if the run has been completed by this call
+     */
+    protected boolean sendCompletionStatus(final int runGeneration, final Supplier<TaskEndStatus> executionStatus) {
+        Objects.requireNonNull(executionStatus);
+        if (! claimCompletion(runGeneration)) {
+            LOGGER.info("Task [{}] has already been completed, late completion is ignored.", name);
+            return false;
+        }
+        completeRun(runGeneration, Objects.requireNonNull(executionStatus.get()));
+        return true;
+    }
+
+    /**
+     * Invoked once a run has been completed (only once per run), before the task can be performed again and before the listeners are notified.
+     *
+     * @param endStatus the end status of the run
+     */
+    protected void handleRunCompleted(final TaskEndStatus endStatus) {}
+
+    private boolean claimCompletion(final int runGeneration) {
+        final int previousGeneration = completedGeneration;
+        if ((runGeneration == 0) || (previousGeneration == runGeneration) || (runningGeneration != runGeneration)) {
+            return false;
+        }
+        // the run can't be released (nor a new one started) until it's completed, so it's still the current one if the CAS succeeds
+        return COMPLETED_GENERATION.compareAndSet(this, previousGeneration, runGeneration);
+    }
+
+    private void completeRun(final int runGeneration, final TaskEndStatus executionStatus) {
+        endStatus = executionStatus;
+        handleRunCompleted(executionStatus);
+        final CompletableFuture<TaskEndStatus> future = completion;
+        // released before notifying the listeners, so that they can perform the task again, unless the action is still running
+        // (after a timeout for instance) : its worker releases the run once it has exited
+        if (workerGeneration != runGeneration) {
+            releaseRun(runGeneration);
+        }
+        if (future != null) {
+            future.complete(executionStatus);
+        }
+        final TaskEventPublisher publisher = activeEventPublisher();
+        final boolean publishedOnBus = TaskEventBus.acceptedBySharedBus(name, status);
+        if ((publisher != null) || publishedOnBus) {
+            publishEvent(new TaskEvent.Completion(name, executionStatus), publisher, publishedOnBus);
+        }
+        final int listenersCount = COMPLETION_LISTENERS.size(completionListeners);
         if (listenersCount == 0) {
             return;
         }
-        LOGGER.info("Task [{}] sending completion event with status [{}] to [{}] listeners ...", name, executionStatus, listenersCount);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Task [{}] sending completion event with status [{}] to [{}] listeners ...", name, executionStatus, listenersCount);
+        }
         sendTaskCompletionEvent(executionStatus);
     }
 
     protected void sendTaskCompletionEvent(final TaskEndStatus executionStatus) {
-        notifyTaskCompletionListeners(listener -> listener.handleTaskFinished(executionStatus));
+        final long dispatchStart = startPhase();
+        final Object listeners = completionListeners;
+        final int listenersCount = COMPLETION_LISTENERS.size(listeners);
+        final TaskDispatchEvent dispatchEvent = startDispatchEvent("completion", listenersCount);
+        for (int index = 0; index < listenersCount; index++) {
+            COMPLETION_LISTENERS.get(listeners, index).handleTaskFinished(executionStatus);
+        }
+        completeDispatchEvent(dispatchEvent);
+        endPhase(TaskPhase.LISTENER_DISPATCH, dispatchStart);
     }
 
     protected void sendError(final TaskErrorType errorType, final Exception error, final Object...parameters) {
@@ -156,42 +683,99 @@ public abstract class SynchronousTask implements Task {
 
     protected void sendError(final Exception error) {
         Objects.requireNonNull(error);
-        final int listenersCount = taskListeners.size();
-        TaskStatus status = statusProperty.get();
+        final int listenersCount = TASK_LISTENERS.size(taskListeners);
+        final TaskStatus currentStatus = status;
+        if (TaskFlightRecorder.isRecording()) {
+            TaskErrorEvent.emit(name, currentStatus, error);
+        }
+        final TaskEventPublisher publisher = activeEventPublisher();
+        final boolean publishedOnBus = TaskEventBus.acceptedBySharedBus(name, currentStatus);
+        TaskException taskException = null;
+        if ((publisher != null) || publishedOnBus) {
+            taskException = toTaskException(error);
+            publishEvent(new TaskEvent.Failure(name, taskException), publisher, publishedOnBus);
+        }
 		if (listenersCount == 0) {
-            LOGGER.error("An error occured during the [{}] status of the action [{}], but no listeners are registered to receive the error.", status, name, error);
+            LOGGER.error("An error occured during the [{}] status of the action [{}], but no listeners are registered to receive the error.", currentStatus, name, error);
             return;
         }
-        LOGGER.error("An error occured during the [{}] status of the action [{}] ...", status, name, error);
-        if (status == TaskStatus.STARTED) {
+        LOGGER.error("An error occured during the [{}] status of the action [{}] ...", currentStatus, name, error);
+        if (currentStatus == TaskStatus.STARTED) {
             executionFailed = true;
         }
-        if (error instanceof TaskException taskException) {
-        	sendTaskException(taskException);
-        } else {
-        	sendTaskException(new TaskException(TaskErrorType.TASK_EXECUTION_FAILED, error));
-        }
+        sendTaskException((taskException != null) ? taskException : toTaskException(error));
+    }
+
+    private static TaskException toTaskException(final Exception error) {
+        return (error instanceof final TaskException taskException) ? taskException : new TaskException(TaskErrorType.TASK_EXECUTION_FAILED, error);
     }
 
     protected void sendTaskException(final TaskException exception) {
-        notifyTaskListeners(listener -> listener.handleTaskError(exception));
+        final long dispatchStart = startPhase();
+        final Object listeners = taskListeners;
+        final int listenersCount = TASK_LISTENERS.size(listeners);
+        final TaskDispatchEvent dispatchEvent = startDispatchEvent("error", listenersCount);
+        for (int index = 0; index < listenersCount; index++) {
+            TASK_LISTENERS.get(listeners, index).handleTaskError(exception);
+        }
+        completeDispatchEvent(dispatchEvent);
+        endPhase(TaskPhase.LISTENER_DISPATCH, dispatchStart);
+    }
+
+    // the flight recorder events are only loaded while recording, so that tasks can run without the jdk.jfr module
+    private TaskDispatchEvent startDispatchEvent(final String eventType, final int listenersCount) {
+        return TaskFlightRecorder.isRecording() ? TaskDispatchEvent.start(name, eventType, listenersCount) : null;
+    }
+
+    private static void completeDispatchEvent(final TaskDispatchEvent dispatchEvent) {
+        if (dispatchEvent != null) {
+            TaskDispatchEvent.complete(dispatchEvent);
+        }
     }
 
+    /**
+     * Starts the task. A task can only run once at a time : if it's still running (not completed yet, or completed by a timeout
+     * while its action is still executed), the call is ignored.
+     */
     @Override
     public void perform() {
+        final int previousGeneration = completedGeneration;
+        // 0 is reserved for the idle task
+        final int newGeneration = (previousGeneration == -1) ? 1 : previousGeneration + 1;
+        if (! RUNNING_GENERATION.compareAndSet(this, 0, newGeneration)) {
+            LOGGER.warn("Task [{}] is already running, the new execution request is ignored.", name);
+            return;
+        }
         LOGGER.info("Starting action [{}] ...", name);
         executionFailed = false;
         stopAsked = false;
+        cancellationToken = null;
+        endStatus = null;
+        final CompletableFuture<TaskEndStatus> previousCompletion = completion;
+        if ((previousCompletion != null) && previousCompletion.isDone()) {
+            COMPLETION.compareAndSet(this, previousCompletion, null);
+        }
+        if (workDone != -1) {
+            updateProgress(-1, -1);
+        }
+        // the origin of nanoTime is arbitrary : the first progress update of the run must not depend on it
+        lastProgressNotification = System.nanoTime() - progressNotificationInterval;
         setStatus(TaskStatus.STARTING);
+        final long beforeActionStart = startPhase();
         try {
             if (! beforeAction()) {
                 abortTask();
                 return;
             }
         } catch (final RuntimeException error) {
-            sendError(TaskErrorType.TASK_INITIALIZATION_FAILED, error);
+            sendError(TaskErrorType.TASK_INITIALIZATION_FAILED, error, name);
+            setStatus(TaskStatus.STOPPED);
+            sendCompletionStatus(TaskEndStatus.EXECUTION_FAILED);
             return;
+        } finally {
+            endPhase(TaskPhase.BEFORE_ACTION, beforeActionStart);
         }
+        submissionTime = startPhase();
         if (isStopAsked()) {
             abortTask();
         } else {
@@ -201,32 +785,229 @@ public abstract class SynchronousTask implements Task {
 
     protected void abortTask() {
         LOGGER.info("Aborting task [{}] ...", name);
-        sendStatusChange(getStatus(), TaskStatus.STOPPED);
+        setStatus(TaskStatus.STOPPED);
         sendCompletionStatus(TaskEndStatus.ABORTED);
     }
 
     protected void startTask() {
+        executeRun(runningGeneration);
+    }
+
+    /**
+     * Executes the action of a run in the current thread. The run can't be released (and the task performed again) until this
+     * method has exited, even if the run is completed in the meantime (by a timeout for instance).
+     *
+     * @param runGeneration the generation of the run
+     */
+    protected final void executeRun(final int runGeneration) {
+        if (! enterRun(runGeneration)) {
+            LOGGER.info("Run of task [{}] has been completed before its action started.", name);
+            return;
+        }
+        try {
+            executeAction(runGeneration);
+        } finally {
+            leaveRun(runGeneration);
+        }
+    }
+
+    private boolean enterRun(final int runGeneration) {
+        while (isCurrentRun(runGeneration)) {
+            if (WORKER_GENERATION.compareAndSet(this, 0, runGeneration)) {
+                if (isCurrentRun(runGeneration)) {
+                    return true;
+                }
+                // completed while entering (by a timeout for instance) : the task is stopped before the run can be released
+                setStatus(TaskStatus.STOPPED);
+                leaveRun(runGeneration);
+                return false;
+            }
+            // a stale worker of a previous run is leaving
+            Thread.onSpinWait();
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a worker has entered a run to execute its action (until it leaves the run, during a retry delay for instance).
+     *
+     * @param runGeneration the generation of the run
+     * @return true if a worker is executing the run
+     */
+    protected final boolean isWorkerInRun(final int runGeneration) {
+        return workerGeneration == runGeneration;
+    }
+
+    private void leaveRun(final int runGeneration) {
+        if (WORKER_GENERATION.compareAndSet(this, runGeneration, 0) && (completedGeneration == runGeneration)) {
+            releaseRun(runGeneration);
+        }
+    }
+
+    private void releaseRun(final int runGeneration) {
+        RUNNING_GENERATION.compareAndSet(this, runGeneration, 0);
+    }
+
+    private void executeAction(final int runGeneration) {
         if (isStopAsked()) {
-            abortTask();
+            LOGGER.info("Aborting task [{}] ...", name);
+            setStatus(TaskStatus.STOPPED);
+            leaveRun(runGeneration);
+            sendCompletionStatus(runGeneration, TaskEndStatus.ABORTED);
             return;
         }
+        EXECUTING_THREAD.set(this, Thread.currentThread());
+        endPhase(TaskPhase.QUEUE_WAIT, submissionTime);
+        // the queue wait is only measured for the first attempt
+        submissionTime = 0;
+        final TaskExecutionEvent executionEvent = TaskFlightRecorder.isRecording() ? TaskExecutionEvent.start(name, getAttempt()) : null;
+        long actionStart = 0;
+        TaskException failure = null;
         try {
             LOGGER.info("Performing action [{}] ...", name);
             setStatus(TaskStatus.STARTED);
+            actionStart = startPhase();
             performAction();
             LOGGER.info("Action [{}] performed.", name);
         } catch (final RuntimeException error) {
+            if (isStopAsked()) {
+                // errors caused by a cancellation (interrupted I/O, cancellation exception ...) are not failures
+                LOGGER.info("Action [{}] has been stopped : {}", name, error.toString());
+            } else {
+                failure = new TaskException(TaskErrorType.TASK_EXECUTION_FAILED, error, name);
+            }
+        } finally {
+            endPhase(TaskPhase.ACTION, actionStart);
+            releaseExecutingThread();
+        }
+        if (failure != null) {
+            if (retryAction(failure)) {
+                // the attempt is over, the next one is recorded by its own event
+                if (executionEvent != null) {
+                    TaskExecutionEvent.complete(executionEvent, TaskEndStatus.EXECUTION_FAILED);
+                }
+                return;
+            }
             executionFailed = true;
-            sendError(TaskErrorType.TASK_EXECUTION_FAILED, error, name);
+            sendError(failure);
+        }
+        final TaskEndStatus endStatus = finishAction(runGeneration);
+        if (executionEvent != null) {
+            TaskExecutionEvent.complete(executionEvent, endStatus);
         }
+    }
+
+    /**
+     * Stops the task once its action is done ({@link #afterAction()} is invoked) and completes the run with the end status of the execution.
+     * Subclasses overriding {@link #startTask()} to run an action that does not hold a thread (started by the caller and completed
+     * by callbacks for instance) invoke it once the action is done, from any thread.
+     *
+     * @param runGeneration the generation of the run
+     * @return the end status of the execution
+     */
+    protected final TaskEndStatus finishAction(final int runGeneration) {
+        flushProgress();
         setStatus(TaskStatus.STOPPING);
+        final long afterActionStart = startPhase();
         try {
             afterAction();
         } catch (final RuntimeException error) {
             sendError(TaskErrorType.TASK_CLEANING_FAILED, error, name);
         }
+        endPhase(TaskPhase.AFTER_ACTION, afterActionStart);
         setStatus(TaskStatus.STOPPED);
-        sendCompletionStatus(executionFailed ? TaskEndStatus.EXECUTION_FAILED : TaskEndStatus.EXECUTION_SUCCESS);
+        final TaskEndStatus endStatus = getExecutionEndStatus();
+        // the worker leaves the run first, so that the completion listeners can perform the task again
+        leaveRun(runGeneration);
+        sendCompletionStatus(runGeneration, endStatus);
+        return endStatus;
+    }
+
+    /**
+     * Invoked when the action has failed, once its thread has been released. Subclasses can schedule a new attempt of the action
+     * (with {@link #executeRun(int)}, for the generation of the current run) and return true : the failure is then not reported and the task is neither stopped nor completed.
+     *
+     * @param error the error of the failed attempt
+     * @return true if a new attempt has been scheduled
+     */
+    protected boolean retryAction(final TaskException error) {
+        return false;
+    }
+
+    /**
+     * Gets the number of the current attempt of the action, 1 for the first execution.
+     * A synchronous task never retries its action.
+     *
+     * @return the attempt number
+     */
+    public int getAttempt() {
+        return 1;
+    }
+
+    /**
+     * Gets the end status of an execution that has been started, once the action has been performed.
+     *
+     * @return the status sent to the completion listeners
+     */
+    protected TaskEndStatus getExecutionEndStatus() {
+        if (executionFailed) {
+            return TaskEndStatus.EXECUTION_FAILED;
+        }
+        return stopAsked ? TaskEndStatus.ABORTED : TaskEndStatus.EXECUTION_SUCCESS;
+    }
+
+    /**
+     * Reads the clock to measure a phase, only if the metrics are enabled.
+     *
+     * @return the current time, or 0 if the metrics are disabled
+     */
+    private static long startPhase() {
+        return METRICS.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    private void endPhase(final TaskPhase phase, final long startTime) {
+        if (startTime != 0) {
+            METRICS.record(name, phase, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Gets the thread currently running {@link #performAction()}.
+     *
+     * @return the executing thread, or null if the action is not running
+     */
+    protected Thread getExecutingThread() {
+        final Thread thread = executingThread;
+        return (thread == INTERRUPTING) ? null : thread;
+    }
+
+    /**
+     * Interrupts the thread currently running {@link #performAction()}, if any.
+     * The thread is only interrupted while it's running the action of this task.
+     *
+     * @return true if a thread has been interrupted
+     */
+    protected boolean interruptExecution() {
+        final Thread thread = executingThread;
+        if ((thread == null) || (thread == INTERRUPTING) || (! EXECUTING_THREAD.compareAndSet(this, thread, INTERRUPTING))) {
+            return false;
+        }
+        LOGGER.info("Interrupting thread [{}] running task [{}] ...", thread.getName(), name);
+        thread.interrupt();
+        EXECUTING_THREAD.set(this, null);
+        return true;
+    }
+
+    private void releaseExecutingThread() {
+        final Thread thread = Thread.currentThread();
+        while (! EXECUTING_THREAD.compareAndSet(this, thread, null)) {
+            if (executingThread == null) {
+                // the thread has been interrupted during the action, the interruption must not leak to the next job of this thread
+                Thread.interrupted();
+                return;
+            }
+            Thread.onSpinWait();
+        }
     }
 
     /**
@@ -246,28 +1027,40 @@ public abstract class SynchronousTask implements Task {
         return executionFailed;
     }
 
+    /**
+     * Notifies the listeners registered when the notification starts.
+     * Listeners can be added or removed (even by the notified listeners) while the notification is in progress.
+     */
     public void notifyTaskListeners(final Consumer<TaskListener> callback) {
-        for (final TaskListener listener : taskListeners) {
-            callback.accept(listener);
+        final Object listeners = taskListeners;
+        final int listenersCount = TASK_LISTENERS.size(listeners);
+        for (int index = 0; index < listenersCount; index++) {
+            callback.accept(TASK_LISTENERS.get(listeners, index));
         }
     }
 
+    /**
+     * Notifies the completion listeners registered when the notification starts.
+     * Listeners can be added or removed (even by the notified listeners) while the notification is in progress.
+     */
     public void notifyTaskCompletionListeners(final Consumer<TaskCompletionListener> callback) {
-        for (final TaskCompletionListener listener : completionListeners) {
-            callback.accept(listener);
+        final Object listeners = completionListeners;
+        final int listenersCount = COMPLETION_LISTENERS.size(listeners);
+        for (int index = 0; index < listenersCount; index++) {
+            callback.accept(COMPLETION_LISTENERS.get(listeners, index));
         }
     }
 
     @Override
     public void addTaskListener(final TaskListener listener) {
         Objects.requireNonNull(listener);
-        taskListeners.add(listener);
+        TASK_LISTENERS.add(this, listener);
     }
 
     @Override
     public void removeTaskListener(final TaskListener listener) {
         Objects.requireNonNull(listener);
-        if (! taskListeners.remove(listener)) {
+        if (! TASK_LISTENERS.remove(this, listener)) {
             throw new IllegalArgumentException("listener has not been added to this task, it can't be removed");
         }
     }
@@ -275,13 +1068,13 @@ public abstract class SynchronousTask implements Task {
     @Override
     public void addTaskCompletionListener(final TaskCompletionListener listener) {
         Objects.requireNonNull(listener);
-        completionListeners.add(listener);
+        COMPLETION_LISTENERS.add(this, listener);
     }
 
     @Override
     public void removeTaskCompletionListener(final TaskCompletionListener listener) {
         Objects.requireNonNull(listener);
-        if (! completionListeners.remove(listener)) {
+        if (! COMPLETION_LISTENERS.remove(this, listener)) {
             throw new IllegalArgumentException("listener has not been added to this task, it can't be removed");
         }
     }
@@ -0,0 +1,286 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.implementation;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.devtoolbox.util.task.event.TaskEvent;
+import org.devtoolbox.util.task.listener.OverflowPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Publisher of the events of a task, with demand-based backpressure.
+ * <p>
+ * Each subscription buffers its events in a lock-free ring buffer (claimed with a CAS by the threads sending the events),
+ * and delivers them only when the subscriber has requested them. Events are delivered by the thread that sends them or by the
+ * thread requesting more of them, never concurrently. When the buffer of a subscription is full, the event is either dropped
+ * ({@link OverflowPolicy#DROP_NEWEST}, the default) or the task waits until the subscriber has requested more events
+ * ({@link OverflowPolicy#BLOCK}, the task is throttled by its slowest subscriber).
+ * <p>
+ * The stream never completes, since a task can be performed again : subscribers cancel their subscription once they are done.
+ *
+ * @author Arnaud Lecollaire
+ */
+public final class TaskEventPublisher implements Flow.Publisher<TaskEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskEventPublisher.class);
+
+    private static final ListenerRegistry<TaskEventPublisher, EventSubscription> SUBSCRIPTIONS = new ListenerRegistry<>(
+            AtomicReferenceFieldUpdater.newUpdater(TaskEventPublisher.class, Object.class, "subscriptions"), new EventSubscription[0]);
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final String taskName;
+    private final LongAdder droppedEvents = new LongAdder();
+    private volatile Object subscriptions = SUBSCRIPTIONS.empty();
+    private volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+
+    TaskEventPublisher(final String taskName) {
+        super();
+        this.taskName = taskName;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super TaskEvent> subscriber) {
+        Objects.requireNonNull(subscriber);
+        final EventSubscription subscription = new EventSubscription(this, subscriber, bufferSize);
+        subscriber.onSubscribe(subscription);
+        if (subscription.cancelled) {
+            return;
+        }
+        SUBSCRIPTIONS.add(this, subscription);
+        // the subscription may have been cancelled by another thread in the meantime
+        if (subscription.cancelled) {
+            SUBSCRIPTIONS.remove(this, subscription);
+        }
+    }
+
+    /**
+     * Checks if events have to be created : a task without subscribers doesn't allocate any event.
+     */
+    boolean hasSubscribers() {
+        return SUBSCRIPTIONS.size(subscriptions) != 0;
+    }
+
+    void publish(final TaskEvent event) {
+        final boolean block = (overflowPolicy == OverflowPolicy.BLOCK);
+        final Object currentSubscriptions = subscriptions;
+        final int subscriptionsCount = SUBSCRIPTIONS.size(currentSubscriptions);
+        for (int index = 0; index < subscriptionsCount; index++) {
+            if (! SUBSCRIPTIONS.get(currentSubscriptions, index).offer(event, block)) {
+                droppedEvents.increment();
+            }
+        }
+    }
+
+    public int getSubscribersCount() {
+        return SUBSCRIPTIONS.size(subscriptions);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the number of events buffered for each subscriber, rounded up to a power of two. Only the next subscriptions are affected.
+     *
+     * @param bufferSize the buffer size, at least 1
+     */
+    public void setBufferSize(final int bufferSize) {
+        if ((bufferSize < 1) || (bufferSize > (1 << 30))) {
+            throw new IllegalArgumentException("invalid buffer size [" + bufferSize + "]");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets the policy applied when the buffer of a subscriber is full.
+     * Only {@link OverflowPolicy#DROP_NEWEST} and {@link OverflowPolicy#BLOCK} are supported : the ring buffer can't replace
+     * an event that may already be read by the subscriber.
+     */
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        Objects.requireNonNull(overflowPolicy);
+        if ((overflowPolicy != OverflowPolicy.DROP_NEWEST) && (overflowPolicy != OverflowPolicy.BLOCK)) {
+            throw new IllegalArgumentException("overflow policy [" + overflowPolicy + "] is not supported by task event publishers");
+        }
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer of a subscriber was full (each subscriber is counted).
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Event publisher of task [" + taskName + "]";
+    }
+
+    private static final class EventSubscription implements Flow.Subscription {
+
+        private static final AtomicLongFieldUpdater<EventSubscription> TAIL =
+                AtomicLongFieldUpdater.newUpdater(EventSubscription.class, "tail");
+        private static final AtomicLongFieldUpdater<EventSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(EventSubscription.class, "requested");
+        private static final AtomicIntegerFieldUpdater<EventSubscription> WORK_IN_PROGRESS =
+                AtomicIntegerFieldUpdater.newUpdater(EventSubscription.class, "workInProgress");
+        private static final long BLOCKED_PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+        private final TaskEventPublisher publisher;
+        private final Flow.Subscriber<? super TaskEvent> subscriber;
+        private final AtomicReferenceArray<TaskEvent> buffer;
+        private final int mask;
+        // next sequence claimed by the threads sending events
+        private volatile long tail;
+        // next sequence delivered to the subscriber, only written by the draining thread
+        private volatile long head;
+        private volatile long requested;
+        private volatile int workInProgress;
+        private volatile Thread notifyingThread;
+        private volatile boolean cancelled;
+
+
+        EventSubscription(final TaskEventPublisher publisher, final Flow.Subscriber<? super TaskEvent> subscriber, final int bufferSize) {
+            super();
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+            final int capacity = (bufferSize == 1) ? 1 : Integer.highestOneBit(bufferSize - 1) << 1;
+            buffer = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        /**
+         * Adds an event to the buffer.
+         *
+         * @return false if the event was dropped
+         */
+        boolean offer(final TaskEvent event, final boolean block) {
+            if (cancelled) {
+                return true;
+            }
+            long sequence;
+            do {
+                sequence = tail;
+                while ((sequence - head) > mask) {
+                    // an event sent by the subscriber itself while it's being notified can't wait for its own notification
+                    if ((! block) || (notifyingThread == Thread.currentThread())) {
+                        return false;
+                    }
+                    if (cancelled) {
+                        return true;
+                    }
+                    LockSupport.parkNanos(BLOCKED_PRODUCER_PARK_NANOS);
+                    sequence = tail;
+                }
+            } while (! TAIL.compareAndSet(this, sequence, sequence + 1));
+            buffer.set((int) sequence & mask, event);
+            if (requested != 0) {
+                drain();
+            }
+            return true;
+        }
+
+        @Override
+        public void request(final long count) {
+            if (count <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("the number of requested events must be positive, got [" + count + "]"));
+                return;
+            }
+            long current;
+            long updated;
+            do {
+                current = requested;
+                updated = current + count;
+                if (updated < 0) {
+                    // unbounded demand
+                    updated = Long.MAX_VALUE;
+                }
+            } while (! REQUESTED.compareAndSet(this, current, updated));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            SUBSCRIPTIONS.remove(publisher, this);
+        }
+
+        /**
+         * Delivers the buffered events, up to the requested count. Only one thread drains the buffer at a time,
+         * the other ones just record that some work is missed and let the draining thread do it.
+         */
+        private void drain() {
+            if (WORK_IN_PROGRESS.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                final long demand = requested;
+                long delivered = 0;
+                long sequence = head;
+                while ((delivered != demand) && (! cancelled)) {
+                    final int index = (int) sequence & mask;
+                    final TaskEvent event = buffer.get(index);
+                    if (event == null) {
+                        // empty buffer, or the slot has been claimed but the event is not written yet (its sender will drain it)
+                        break;
+                    }
+                    buffer.lazySet(index, null);
+                    head = ++sequence;
+                    delivered++;
+                    // only written by the thread draining the buffer
+                    notifyingThread = Thread.currentThread();
+                    try {
+                        subscriber.onNext(event);
+                    } catch (final RuntimeException error) {
+                        LOGGER.error("Subscriber [{}] failed to handle event [{}], its subscription is cancelled.", subscriber, event, error);
+                        cancel();
+                    } finally {
+                        notifyingThread = null;
+                    }
+                }
+                if ((delivered != 0) && (demand != Long.MAX_VALUE)) {
+                    REQUESTED.addAndGet(this, -delivered);
+                }
+                missed = WORK_IN_PROGRESS.addAndGet(this, -missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.implementation;
+
+import org.devtoolbox.util.task.status.TaskStatus;
+
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+
+
+/**
+ * JavaFX adapter of the state of a task.
+ * <p>
+ * The state of a task is kept in plain fields, this adapter is only created when its properties are first requested : tasks
+ * that are never bound to a JavaFX view do not load the JavaFX property classes.
+ *
+ * @author Arnaud Lecollaire
+ */
+final class TaskProperties {
+
+    private final ReadOnlyObjectWrapper<TaskStatus> statusProperty;
+    private final ReadOnlyDoubleWrapper progressProperty;
+
+
+    TaskProperties(final TaskStatus status, final double progress) {
+        super();
+        statusProperty = new ReadOnlyObjectWrapper<>(status);
+        progressProperty = new ReadOnlyDoubleWrapper(progress);
+    }
+
+    ReadOnlyObjectProperty<TaskStatus> statusProperty() {
+        return statusProperty.getReadOnlyProperty();
+    }
+
+    ReadOnlyDoubleProperty progressProperty() {
+        return progressProperty.getReadOnlyProperty();
+    }
+
+    void setStatus(final TaskStatus status) {
+        statusProperty.set(status);
+    }
+
+    void setProgress(final double progress) {
+        progressProperty.set(progress);
+    }
+}
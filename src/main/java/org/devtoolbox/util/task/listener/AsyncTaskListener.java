@@ -0,0 +1,360 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.listener;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.message.TaskMessage;
+import org.devtoolbox.util.task.metrics.LatencyHistogram;
+import org.devtoolbox.util.task.metrics.LatencySnapshot;
+import org.devtoolbox.util.task.status.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Task listener delivering the events to another listener from its own thread.
+ * <p>
+ * Events are queued in a bounded queue and delivered in order by a dedicated thread (a virtual thread by default), so a slow
+ * listener (writing to a disk or to the network ...) does not slow down the task. When the queue is full, the overflow policy
+ * decides whether the task waits or events are dropped. Messages are formatted in the delivery thread.
+ * <p>
+ * The delivery thread runs until the listener is closed, then the pending events are delivered and the thread stops.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class AsyncTaskListener implements TaskListener, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncTaskListener.class);
+
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("task-listener-", 1).factory();
+
+    private final TaskListener listener;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Deque<Event> queue = new ArrayDeque<>();
+    private final Thread deliveryThread;
+    private boolean closed;
+    private volatile boolean delivering;
+    private final LongAdder deliveredEventsCount = new LongAdder();
+    private final LongAdder droppedEventsCount = new LongAdder();
+    private final LongAdder coalescedEventsCount = new LongAdder();
+    private final LongAdder laggingEventsCount = new LongAdder();
+    private final LatencyHistogram deliveryLags = new LatencyHistogram();
+
+
+    /**
+     * Creates a listener delivering the events from a virtual thread.
+     *
+     * @param listener the listener receiving the events
+     * @param capacity the max number of pending events
+     * @param overflowPolicy the policy applied when the queue is full
+     */
+    public AsyncTaskListener(final TaskListener listener, final int capacity, final OverflowPolicy overflowPolicy) {
+        this(listener, capacity, overflowPolicy, VIRTUAL_THREADS);
+    }
+
+    /**
+     * @param listener the listener receiving the events
+     * @param capacity the max number of pending events
+     * @param overflowPolicy the policy applied when the queue is full
+     * @param threadFactory the factory creating the delivery thread
+     */
+    public AsyncTaskListener(final TaskListener listener, final int capacity, final OverflowPolicy overflowPolicy, final ThreadFactory threadFactory) {
+        super();
+        this.listener = Objects.requireNonNull(listener);
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be strictly positive");
+        }
+        this.capacity = capacity;
+        deliveryThread = threadFactory.newThread(this::deliverEvents);
+        deliveryThread.start();
+    }
+
+    @Override
+    public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+        enqueue(new StatusEvent(oldStatus, newStatus, System.nanoTime()));
+    }
+
+    @Override
+    public void handleTaskMessage(final String message) {
+        enqueue(new TextEvent(message, false, System.nanoTime()));
+    }
+
+    @Override
+    public void handleTaskMessageTemplate(final TaskMessage message) {
+        enqueue(new MessageEvent(message, System.nanoTime()));
+    }
+
+    @Override
+    public void handleTaskProgress(final long workDone, final long totalWork) {
+        enqueue(new ProgressEvent(workDone, totalWork, System.nanoTime()));
+    }
+
+    @Override
+    public void handleTaskRetry(final int failedAttempt, final Duration delay, final TaskException error) {
+        enqueue(new RetryEvent(failedAttempt, delay, error, System.nanoTime()));
+    }
+
+    @Override
+    public void handleTaskErrorMessage(final String message) {
+        enqueue(new TextEvent(message, true, System.nanoTime()));
+    }
+
+    @Override
+    public void handleTaskError(final TaskException error) {
+        enqueue(new ErrorEvent(error, System.nanoTime()));
+    }
+
+    private void enqueue(final Event event) {
+        lock.lock();
+        try {
+            if (closed) {
+                droppedEventsCount.increment();
+                return;
+            }
+            if ((! queue.isEmpty()) || delivering) {
+                laggingEventsCount.increment();
+            }
+            Event queuedEvent = event;
+            if ((overflowPolicy == OverflowPolicy.COALESCE_STATUS) && ((event instanceof StatusEvent) || (event instanceof ProgressEvent))) {
+                queuedEvent = coalesce(event);
+                if (queuedEvent == null) {
+                    return;
+                }
+            }
+            while (queue.size() >= capacity) {
+                switch (overflowPolicy) {
+                case BLOCK -> {
+                    try {
+                        notFull.await();
+                    } catch (final InterruptedException error) {
+                        Thread.currentThread().interrupt();
+                        droppedEventsCount.increment();
+                        return;
+                    }
+                    if (closed) {
+                        droppedEventsCount.increment();
+                        return;
+                    }
+                }
+                case DROP_OLDEST -> {
+                    queue.poll();
+                    droppedEventsCount.increment();
+                }
+                case DROP_NEWEST, COALESCE_STATUS -> {
+                    droppedEventsCount.increment();
+                    return;
+                }
+                }
+            }
+            queue.add(queuedEvent);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Merges the new event into the last pending event if it's of the same kind. Only the tail of the queue is merged,
+     * so an event is never moved behind the events sent after it.
+     *
+     * @return the event to queue, or null if the pending event has been replaced (or cancelled, by a status change back to its old status)
+     */
+    private Event coalesce(final Event event) {
+        final Event pendingEvent = queue.peekLast();
+        if ((pendingEvent == null) || (pendingEvent.getClass() != event.getClass())) {
+            return event;
+        }
+        queue.pollLast();
+        coalescedEventsCount.increment();
+        if ((pendingEvent instanceof final StatusEvent pendingStatus) && (event instanceof final StatusEvent newStatus)) {
+            if (pendingStatus.oldStatus() == newStatus.newStatus()) {
+                notFull.signal();
+                return null;
+            }
+            // the merged event has waited since the pending one has been sent
+            return new StatusEvent(pendingStatus.oldStatus(), newStatus.newStatus(), pendingStatus.time());
+        }
+        final ProgressEvent newProgress = (ProgressEvent) event;
+        return new ProgressEvent(newProgress.workDone(), newProgress.totalWork(), pendingEvent.time());
+    }
+
+    private void deliverEvents() {
+        while (true) {
+            final Event event;
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    if (closed) {
+                        return;
+                    }
+                    notEmpty.awaitUninterruptibly();
+                }
+                event = queue.poll();
+                delivering = true;
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            deliveryLags.record(System.nanoTime() - event.time());
+            try {
+                deliver(event);
+            } catch (final RuntimeException error) {
+                LOGGER.error("An error occured while delivering an event to listener [{}].", listener, error);
+            }
+            deliveredEventsCount.increment();
+            delivering = false;
+        }
+    }
+
+    private void deliver(final Event event) {
+        switch (event) {
+        case StatusEvent statusEvent -> listener.handleTaskStatusChange(statusEvent.oldStatus(), statusEvent.newStatus());
+        case MessageEvent messageEvent -> listener.handleTaskMessageTemplate(messageEvent.message());
+        case TextEvent textEvent when textEvent.error() -> listener.handleTaskErrorMessage(textEvent.text());
+        case TextEvent textEvent -> listener.handleTaskMessage(textEvent.text());
+        case ProgressEvent progressEvent -> listener.handleTaskProgress(progressEvent.workDone(), progressEvent.totalWork());
+        case RetryEvent retryEvent -> listener.handleTaskRetry(retryEvent.failedAttempt(), retryEvent.delay(), retryEvent.error());
+        case ErrorEvent errorEvent -> listener.handleTaskError(errorEvent.error());
+        }
+    }
+
+    /**
+     * Stops accepting events, the pending events are still delivered before the delivery thread stops.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            // senders waiting for some space give up
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the pending events are delivered, after the listener has been closed.
+     *
+     * @return false if the delivery thread is still running after the timeout
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitTermination(final Duration timeout) throws InterruptedException {
+        return deliveryThread.join(timeout);
+    }
+
+    public TaskListener getListener() {
+        return listener;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Gets the number of events waiting to be delivered.
+     *
+     * @return the number of pending events
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDeliveredCount() {
+        return deliveredEventsCount.sum();
+    }
+
+    /**
+     * Gets the number of events dropped because the queue was full (or the listener closed).
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return droppedEventsCount.sum();
+    }
+
+    /**
+     * Gets the number of pending events merged into a newer event by the {@link OverflowPolicy#COALESCE_STATUS} policy.
+     * Each merge counts once, including a status change cancelled by a change back to its old status (both events are then dropped).
+     *
+     * @return the number of coalesced events
+     */
+    public long getCoalescedCount() {
+        return coalescedEventsCount.sum();
+    }
+
+    /**
+     * Gets the number of events sent while the listener was still busy with the previous ones.
+     *
+     * @return the number of lagging events
+     */
+    public long getLaggingCount() {
+        return laggingEventsCount.sum();
+    }
+
+    /**
+     * Gets the distribution of the durations between the sending and the delivery of the events.
+     *
+     * @return the snapshot of the delivery lags, in nanoseconds
+     */
+    public LatencySnapshot getDeliveryLags() {
+        return deliveryLags.getSnapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "Asynchronous listener [" + listener + "]";
+    }
+
+
+    private sealed interface Event {
+        /** time the event has been sent, in nanoseconds */
+        long time();
+    }
+
+    private record StatusEvent(TaskStatus oldStatus, TaskStatus newStatus, long time) implements Event {}
+
+    private record MessageEvent(TaskMessage message, long time) implements Event {}
+
+    private record TextEvent(String text, boolean error, long time) implements Event {}
+
+    private record ProgressEvent(long workDone, long totalWork, long time) implements Event {}
+
+    private record RetryEvent(int failedAttempt, Duration delay, TaskException error, long time) implements Event {}
+
+    private record ErrorEvent(TaskException error, long time) implements Event {}
+}
@@ -0,0 +1,41 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.listener;
+
+
+/**
+ * Policy applied by an {@link AsyncTaskListener} when an event is sent while its queue is full.
+ *
+ * @author Arnaud Lecollaire
+ */
+public enum OverflowPolicy {
+    /** the thread sending the event waits until there is some space in the queue (the task is throttled by the listener) */
+    BLOCK,
+
+    /** the oldest pending event is dropped */
+    DROP_OLDEST,
+
+    /** the new event is dropped */
+    DROP_NEWEST,
+
+    /**
+     * a status change or a progress update replaces the last pending event if it's of the same kind (whether the queue is full or not),
+     * other events are dropped when the queue is full
+     */
+    COALESCE_STATUS;
+
+}
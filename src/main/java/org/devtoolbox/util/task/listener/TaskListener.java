@@ -16,7 +16,10 @@
  */
 package org.devtoolbox.util.task.listener;
 
+import java.time.Duration;
+
 import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.message.TaskMessage;
 import org.devtoolbox.util.task.status.TaskStatus;
 
 
@@ -31,6 +34,34 @@ public interface TaskListener {
 
     public default void handleTaskMessage(final String message) {}
 
+    /**
+     * Handles a message sent by the task. By default, the message is formatted and forwarded to {@link #handleTaskMessage(String)}.
+     * Listeners only interested in the pattern and the parameters can override this method to avoid formatting the message.
+     * <p>
+     * The parameters are not copied : the task must not modify them once the message has been sent, since the message can be
+     * formatted later (by an asynchronous listener for instance).
+     */
+    public default void handleTaskMessageTemplate(final TaskMessage message) {
+        handleTaskMessage(message.getText());
+    }
+
+    /**
+     * Handles a progress notification. Notifications are throttled, intermediate progress updates may not be notified.
+     *
+     * @param workDone the amount of work done, or -1 if unknown
+     * @param totalWork the total amount of work, or -1 if unknown
+     */
+    public default void handleTaskProgress(final long workDone, final long totalWork) {}
+
+    /**
+     * Handles the failure of an attempt of the task action, when the action is going to be executed again.
+     *
+     * @param failedAttempt the number of the attempt that failed, starting at 1
+     * @param delay the delay before the next attempt
+     * @param error the error of the failed attempt
+     */
+    public default void handleTaskRetry(final int failedAttempt, final Duration delay, final TaskException error) {}
+
     public default void handleTaskErrorMessage(final String message) {
         handleTaskMessage("ERROR: " + message);
     }
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.message;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Bounded cache of parsed message templates, so that each pattern is only parsed once.
+ * <p>
+ * Lookups and formatting are lock-free. When the cache is full, the least recently used templates are evicted (by batches, to keep the
+ * eviction cost low).
+ *
+ * @author Arnaud Lecollaire
+ */
+public class MessageTemplateCache {
+
+    private static final MessageTemplateCache SHARED = new MessageTemplateCache(1024);
+    /** access times are compared relatively to this origin, since nano times can overflow */
+    private static final long EPOCH = System.nanoTime();
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final int capacity;
+
+
+    /**
+     * @param capacity the max number of templates kept in the cache
+     */
+    public MessageTemplateCache(final int capacity) {
+        super();
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be strictly positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the cache used to format all task messages.
+     *
+     * @return the shared cache
+     */
+    public static MessageTemplateCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Formats a message with {@link MessageFormat}, using the cached template for its pattern.
+     *
+     * @param pattern the message pattern
+     * @param parameters the parameters inserted in the message
+     * @return the formatted message
+     */
+    public String format(final String pattern, final Object...parameters) {
+        Objects.requireNonNull(pattern);
+        return getTemplate(pattern).format(parameters);
+    }
+
+    private Template getTemplate(final String pattern) {
+        Template template = templates.get(pattern);
+        if (template != null) {
+            hitCount.increment();
+            template.lastAccess = System.nanoTime();
+            return template;
+        }
+        missCount.increment();
+        template = new Template(new MessageFormat(pattern));
+        final Template existingTemplate = templates.putIfAbsent(pattern, template);
+        if (existingTemplate != null) {
+            return existingTemplate;
+        }
+        if (templates.size() > capacity) {
+            evict();
+        }
+        return template;
+    }
+
+    private void evict() {
+        if (! evictionLock.tryLock()) {
+            // another thread is already evicting
+            return;
+        }
+        try {
+            // evicts down to 90% of the capacity, so that the next insertions don't trigger an eviction each
+            final int evictedCount = templates.size() - capacity + Math.max(1, capacity / 10);
+            final long[] accesses = new long[templates.size()];
+            int accessesCount = 0;
+            for (final Template template : templates.values()) {
+                if (accessesCount == accesses.length) {
+                    break;
+                }
+                accesses[accessesCount++] = template.lastAccess - EPOCH;
+            }
+            if (accessesCount < evictedCount) {
+                return;
+            }
+            Arrays.sort(accesses, 0, accessesCount);
+            final long limit = accesses[evictedCount - 1];
+            for (final Map.Entry<String, Template> entry : templates.entrySet()) {
+                if ((entry.getValue().lastAccess - EPOCH <= limit) && templates.remove(entry.getKey(), entry.getValue())) {
+                    evictionCount.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return templates.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public void clear() {
+        templates.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "Message template cache [size=" + getSize() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+
+
+    /**
+     * Parsed template. MessageFormat is not thread-safe : the parsed format is never used directly, each call formats with
+     * a copy. The last copy is kept as a spare, so that uncontended calls don't copy the format again.
+     */
+    private static class Template {
+
+        private final MessageFormat format;
+        private final AtomicReference<MessageFormat> spareFormat = new AtomicReference<>();
+        private volatile long lastAccess = System.nanoTime();
+
+
+        private Template(final MessageFormat format) {
+            this.format = format;
+        }
+
+        private String format(final Object[] parameters) {
+            MessageFormat formatCopy = spareFormat.getAndSet(null);
+            if (formatCopy == null) {
+                formatCopy = (MessageFormat) format.clone();
+            }
+            final String text = formatCopy.format(parameters);
+            spareFormat.set(formatCopy);
+            return text;
+        }
+    }
+}
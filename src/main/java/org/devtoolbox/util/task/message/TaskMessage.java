@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.message;
+
+import java.util.Objects;
+
+
+/**
+ * Message sent by a task, with its pattern and parameters.
+ * <p>
+ * The text is only formatted the first time it is requested, so listeners only interested in the pattern and the parameters
+ * never pay for the formatting. The parameters must not be modified once the message has been created.
+ *
+ * @author Arnaud Lecollaire
+ */
+public final class TaskMessage {
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final String pattern;
+    private final Object[] parameters;
+    private String text;
+
+
+    public TaskMessage(final String pattern, final Object...parameters) {
+        super();
+        this.pattern = Objects.requireNonNull(pattern);
+        if ((parameters == null) || (parameters.length == 0)) {
+            this.parameters = NO_PARAMETERS;
+            text = pattern;
+        } else {
+            this.parameters = parameters;
+        }
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Gets the message parameters. The returned array must not be modified.
+     *
+     * @return the parameters, or an empty array if the message has no parameters
+     */
+    public Object[] getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Gets the formatted message, formatting it on the first call.
+     *
+     * @return the formatted message
+     */
+    public String getText() {
+        String formattedText = text;
+        if (formattedText == null) {
+            formattedText = MessageTemplateCache.shared().format(pattern, parameters);
+            text = formattedText;
+        }
+        return formattedText;
+    }
+
+    public boolean isFormatted() {
+        return text != null;
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock-free histogram of latencies, in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets : each power of two is divided in 16 buckets, so the relative error is below 6.25%
+ * whatever the magnitude of the value. Recording a value is a few atomic increments, without lock nor allocation.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS_COUNT = (64 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+
+    public LatencyHistogram() {
+        super();
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalValue.add(value);
+        long currentMax = maxValue.get();
+        while ((value > currentMax) && (! maxValue.compareAndSet(currentMax, value))) {
+            currentMax = maxValue.get();
+        }
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKETS_COUNT) {
+            return (int) value;
+        }
+        final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) ((value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS_COUNT - 1));
+        return ((highestBit - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    static long bucketHighestValue(final int index) {
+        if (index < SUB_BUCKETS_COUNT) {
+            return index;
+        }
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        final long lowestValue = ((long) (SUB_BUCKETS_COUNT + (index & (SUB_BUCKETS_COUNT - 1)))) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Gets a snapshot of the histogram. The snapshot is consistent only if no value is recorded in the meantime,
+     * otherwise the most recent values may be partially taken into account.
+     *
+     * @return the snapshot
+     */
+    public LatencySnapshot getSnapshot() {
+        final long[] snapshotCounts = new long[BUCKETS_COUNT];
+        long count = 0;
+        for (int index = 0; index < BUCKETS_COUNT; index++) {
+            snapshotCounts[index] = counts.get(index);
+            count += snapshotCounts[index];
+        }
+        if (count == 0) {
+            return LatencySnapshot.EMPTY;
+        }
+        final long max = maxValue.get();
+        return new LatencySnapshot(count, totalValue.sum() / Math.max(1, totalCount.sum()), percentile(snapshotCounts, count, 0.5, max),
+            percentile(snapshotCounts, count, 0.99, max), percentile(snapshotCounts, count, 0.999, max), max);
+    }
+
+    private static long percentile(final long[] snapshotCounts, final long count, final double percentile, final long max) {
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile));
+        long cumulatedCount = 0;
+        for (int index = 0; index < snapshotCounts.length; index++) {
+            cumulatedCount += snapshotCounts[index];
+            if (cumulatedCount >= rank) {
+                return Math.min(bucketHighestValue(index), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Clears the recorded values. Values recorded during the reset may be partially kept.
+     */
+    public void reset() {
+        for (int index = 0; index < BUCKETS_COUNT; index++) {
+            counts.set(index, 0);
+        }
+        totalCount.reset();
+        totalValue.reset();
+        maxValue.set(0);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event covering the notification of a task event to the listeners.
+ *
+ * @author Arnaud Lecollaire
+ */
+@Name("org.devtoolbox.task.Dispatch")
+@Label("Task Listener Dispatch")
+@Category({ "Dev Toolbox", "Task" })
+@Description("Notification of a task event to all the registered listeners")
+public final class TaskDispatchEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(TaskDispatchEvent.class);
+
+    @Label("Task Name")
+    private String taskName;
+
+    @Label("Event Type")
+    private String eventType;
+
+    @Label("Listeners Count")
+    private int listenersCount;
+
+
+    private TaskDispatchEvent() {
+        super();
+    }
+
+    /**
+     * Starts a dispatch event, only if the event is enabled in a recording.
+     *
+     * @param eventType the type of the notified event (status, message ...)
+     * @return the started event, or null if the event is disabled
+     */
+    public static TaskDispatchEvent start(final String taskName, final String eventType, final int listenersCount) {
+        if (! TYPE.isEnabled()) {
+            return null;
+        }
+        final TaskDispatchEvent event = new TaskDispatchEvent();
+        event.taskName = taskName;
+        event.eventType = eventType;
+        event.listenersCount = listenersCount;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits a dispatch event.
+     *
+     * @param event the event returned by {@link #start(String, String, int)}, can be null
+     */
+    public static void complete(final TaskDispatchEvent event) {
+        if (event != null) {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event emitted when a task reports an error.
+ *
+ * @author Arnaud Lecollaire
+ */
+@Name("org.devtoolbox.task.Error")
+@Label("Task Error")
+@Category({ "Dev Toolbox", "Task" })
+@Description("Error reported by a task to its listeners")
+public final class TaskErrorEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(TaskErrorEvent.class);
+
+    @Label("Task Name")
+    private String taskName;
+
+    @Label("Task Status")
+    private String status;
+
+    @Label("Error Class")
+    private Class<?> errorClass;
+
+    @Label("Message")
+    private String message;
+
+
+    private TaskErrorEvent() {
+        super();
+    }
+
+    /**
+     * Commits an error event, only if the event is enabled in a recording.
+     *
+     * @param status the status of the task when the error occurred
+     */
+    public static void emit(final String taskName, final Object status, final Throwable error) {
+        if (TYPE.isEnabled()) {
+            final TaskErrorEvent event = new TaskErrorEvent();
+            event.taskName = taskName;
+            event.status = String.valueOf(status);
+            event.errorClass = error.getClass();
+            event.message = error.getMessage();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import org.devtoolbox.util.task.status.TaskEndStatus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event covering the execution of a task action, from its start to its completion.
+ *
+ * @author Arnaud Lecollaire
+ */
+@Name("org.devtoolbox.task.Execution")
+@Label("Task Execution")
+@Category({ "Dev Toolbox", "Task" })
+@Description("Execution of a task, from the start of its action to its completion")
+public final class TaskExecutionEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(TaskExecutionEvent.class);
+
+    @Label("Task Name")
+    private String taskName;
+
+    @Label("Attempt")
+    private int attempt;
+
+    @Label("End Status")
+    private String endStatus;
+
+
+    private TaskExecutionEvent() {
+        super();
+    }
+
+    /**
+     * Starts an execution event, only if the event is enabled in a recording.
+     *
+     * @param attempt the number of the attempt of the action, 1 for the first execution
+     * @return the started event, or null if the event is disabled
+     */
+    public static TaskExecutionEvent start(final String taskName, final int attempt) {
+        if (! TYPE.isEnabled()) {
+            return null;
+        }
+        final TaskExecutionEvent event = new TaskExecutionEvent();
+        event.taskName = taskName;
+        event.attempt = attempt;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits an execution event.
+     *
+     * @param event the event returned by {@link #start(String, int)}, can be null
+     * @param endStatus the end status of the execution
+     */
+    public static void complete(final TaskExecutionEvent event, final TaskEndStatus endStatus) {
+        if (event != null) {
+            event.endStatus = String.valueOf(endStatus);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import jdk.jfr.FlightRecorder;
+
+
+/**
+ * Entry point of the flight recorder events of the tasks ({@link TaskStatusEvent}, {@link TaskDispatchEvent} ...).
+ * <p>
+ * The jdk.jfr module is optional : tasks only load the event classes (and the flight recorder metadata) once the flight recorder
+ * has been initialized by a recording, and never on runtimes without the module (custom runtime images for instance).
+ *
+ * @author Arnaud Lecollaire
+ */
+public final class TaskFlightRecorder {
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr")
+        .map(TaskFlightRecorder.class.getModule()::canRead).orElse(Boolean.FALSE).booleanValue();
+
+
+    private TaskFlightRecorder() {
+        super();
+    }
+
+    /**
+     * Checks if the events of the tasks may be recorded : the flight recorder is available and has been initialized.
+     * The events check themselves whether they are enabled in a recording.
+     *
+     * @return true if the events of the tasks should be created
+     */
+    public static boolean isRecording() {
+        return AVAILABLE && FlightRecorder.isInitialized();
+    }
+}
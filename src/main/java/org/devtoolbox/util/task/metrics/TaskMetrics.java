@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Latency histograms of the task phases, keyed by task name.
+ * <p>
+ * Metrics are disabled by default : tasks then only read a volatile flag, without reading the clock nor recording anything.
+ * The histograms of a task are kept until the metrics are cleared, so the number of task names is bounded : once the limit is reached,
+ * the phases of the tasks with new names are recorded under {@link #OTHER_TASKS}.
+ *
+ * @author Arnaud Lecollaire
+ */
+public class TaskMetrics {
+
+    /** key of the phases recorded for the tasks whose names exceed the max tasks count */
+    public static final String OTHER_TASKS = "<other tasks>";
+    private static final int DEFAULT_MAX_TASKS_COUNT = 1_000;
+    private static final TaskMetrics SHARED = new TaskMetrics();
+    private static final TaskPhase[] PHASES = TaskPhase.values();
+
+    private final Map<String, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+    private volatile boolean enabled = false;
+    private volatile int maxTasksCount = DEFAULT_MAX_TASKS_COUNT;
+
+
+    public TaskMetrics() {
+        super();
+    }
+
+    /**
+     * Gets the metrics recorded by all tasks.
+     *
+     * @return the shared metrics
+     */
+    public static TaskMetrics shared() {
+        return SHARED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxTasksCount() {
+        return maxTasksCount;
+    }
+
+    /**
+     * Defines the max number of task names having their own histograms (about 38 KB per name), the other tasks share the
+     * {@link #OTHER_TASKS} histograms. The limit only applies to the names recorded from now on.
+     *
+     * @param maxTasksCount the max number of task names
+     */
+    public void setMaxTasksCount(final int maxTasksCount) {
+        if (maxTasksCount < 0) {
+            throw new IllegalArgumentException("max tasks count can not be negative");
+        }
+        this.maxTasksCount = maxTasksCount;
+    }
+
+    /**
+     * Records the duration of a phase of a task.
+     *
+     * @param taskName the name of the task
+     * @param phase the measured phase
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(final String taskName, final TaskPhase phase, final long nanos) {
+        Objects.requireNonNull(phase);
+        final String key = String.valueOf(taskName);
+        LatencyHistogram[] taskHistograms = histograms.get(key);
+        if (taskHistograms == null) {
+            // the limit may be exceeded by a few names recorded concurrently, the map is only bounded approximately
+            final String boundedKey = (histograms.size() < maxTasksCount) ? key : OTHER_TASKS;
+            taskHistograms = histograms.computeIfAbsent(boundedKey, name -> createHistograms());
+        }
+        taskHistograms[phase.ordinal()].record(nanos);
+    }
+
+    private static LatencyHistogram[] createHistograms() {
+        final LatencyHistogram[] taskHistograms = new LatencyHistogram[PHASES.length];
+        for (int index = 0; index < taskHistograms.length; index++) {
+            taskHistograms[index] = new LatencyHistogram();
+        }
+        return taskHistograms;
+    }
+
+    /**
+     * Gets a snapshot of the phases of a task.
+     *
+     * @param taskName the name of the task, or {@link #OTHER_TASKS}
+     * @return the snapshots of the phases, empty if nothing has been recorded for this task (or if it has been recorded under {@link #OTHER_TASKS})
+     */
+    public Map<TaskPhase, LatencySnapshot> getSnapshot(final String taskName) {
+        final LatencyHistogram[] taskHistograms = histograms.get(String.valueOf(taskName));
+        if (taskHistograms == null) {
+            return Collections.emptyMap();
+        }
+        final Map<TaskPhase, LatencySnapshot> snapshot = new EnumMap<>(TaskPhase.class);
+        for (final TaskPhase phase : PHASES) {
+            snapshot.put(phase, taskHistograms[phase.ordinal()].getSnapshot());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Gets a snapshot of the phases of all the tasks.
+     *
+     * @return the snapshots of the phases, sorted by task name
+     */
+    public Map<String, Map<TaskPhase, LatencySnapshot>> getSnapshot() {
+        final Map<String, Map<TaskPhase, LatencySnapshot>> snapshot = new TreeMap<>();
+        for (final String taskName : histograms.keySet()) {
+            snapshot.put(taskName, getSnapshot(taskName));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Removes all the recorded values.
+     */
+    public void clear() {
+        histograms.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "Task metrics [" + (enabled ? "enabled" : "disabled") + ", " + histograms.size() + " tasks]";
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import org.devtoolbox.util.task.status.TaskStatus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event emitted when the status of a task changes.
+ *
+ * @author Arnaud Lecollaire
+ */
+@Name("org.devtoolbox.task.StatusChange")
+@Label("Task Status Change")
+@Category({ "Dev Toolbox", "Task" })
+@Description("Transition of a task from a status to another")
+public final class TaskStatusEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(TaskStatusEvent.class);
+
+    @Label("Task Name")
+    private String taskName;
+
+    @Label("Old Status")
+    private String oldStatus;
+
+    @Label("New Status")
+    private String newStatus;
+
+
+    private TaskStatusEvent() {
+        super();
+    }
+
+    /**
+     * Commits a status change event, only if the event is enabled in a recording.
+     */
+    public static void emit(final String taskName, final TaskStatus oldStatus, final TaskStatus newStatus) {
+        if (TYPE.isEnabled()) {
+            final TaskStatusEvent event = new TaskStatusEvent();
+            event.taskName = taskName;
+            event.oldStatus = String.valueOf(oldStatus);
+            event.newStatus = String.valueOf(newStatus);
+            event.commit();
+        }
+    }
+}
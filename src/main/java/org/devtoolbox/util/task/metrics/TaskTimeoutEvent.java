@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.devtoolbox.util.task.metrics;
+
+import java.time.Duration;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+
+/**
+ * Flight recorder event emitted when a task reaches its soft or hard timeout.
+ *
+ * @author Arnaud Lecollaire
+ */
+@Name("org.devtoolbox.task.Timeout")
+@Label("Task Timeout")
+@Category({ "Dev Toolbox", "Task" })
+@Description("Task still running after its soft or hard timeout")
+public final class TaskTimeoutEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(TaskTimeoutEvent.class);
+
+    @Label("Task Name")
+    private String taskName;
+
+    @Label("Task Thread")
+    @Description("Thread running the task action when the timeout expired")
+    private Thread taskThread;
+
+    @Label("Hard Timeout")
+    private boolean hardTimeout;
+
+    @Label("Timeout")
+    @Timespan(Timespan.NANOSECONDS)
+    private long timeout;
+
+
+    private TaskTimeoutEvent() {
+        super();
+    }
+
+    /**
+     * Commits a timeout event, only if the event is enabled in a recording.
+     *
+     * @param taskThread the thread running the task action, can be null
+     * @param hardTimeout true for a hard timeout (the task is stopped), false for a soft timeout
+     */
+    public static void emit(final String taskName, final Thread taskThread, final boolean hardTimeout, final Duration timeout) {
+        if (TYPE.isEnabled()) {
+            final TaskTimeoutEvent event = new TaskTimeoutEvent();
+            event.taskName = taskName;
+            event.taskThread = taskThread;
+            event.hardTimeout = hardTimeout;
+            event.timeout = (timeout == null) ? 0 : timeout.toNanos();
+            event.commit();
+        }
+    }
+}
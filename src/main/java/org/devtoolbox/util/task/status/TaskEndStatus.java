@@ -31,6 +31,9 @@ public enum TaskEndStatus {
     ABORTED,
 
     /** task did not finish within the max allowed duration (the task might still be running) */
-    TIMEOUT;
+    TIMEOUT,
+
+    /** task has not been executed because its bulkhead was overloaded */
+    REJECTED;
 
 }
\ No newline at end of file
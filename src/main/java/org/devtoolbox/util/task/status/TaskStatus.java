@@ -34,5 +34,21 @@ public enum TaskStatus {
 	/** task is stopped */
 	STOPPED,
 	/** task has been running for longer than expected (but it is not stopped, and could finish normally) */
-	TIMEOUT
+	TIMEOUT;
+
+    /**
+     * Checks if a task can go from this status to another one : a task can't go back to {@link #CREATED}, can only be started
+     * once initialized and can only be initialized again once stopped.
+     *
+     * @param newStatus the next status
+     * @return true if the transition is valid
+     */
+    public boolean canChangeTo(final TaskStatus newStatus) {
+        return switch (newStatus) {
+            case CREATED -> false;
+            case INITIALIZED -> (this == CREATED) || (this == STOPPED);
+            case STARTING, STARTED -> this != CREATED;
+            case STOPPING, STOPPED, TIMEOUT -> (this != CREATED) && (this != INITIALIZED);
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,789 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.devtoolbox.util.task.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.error.TaskErrorType;
+import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.executor.Bulkhead;
+import org.devtoolbox.util.task.executor.PriorityTaskExecutor;
+import org.devtoolbox.util.task.executor.RejectionPolicy;
+import org.devtoolbox.util.task.executor.TaskExecutor;
+import org.devtoolbox.util.task.executor.ThreadPoolTaskExecutor;
+import org.devtoolbox.util.task.implementation.AsynchronousTask;
+import org.devtoolbox.util.task.implementation.EventBatching;
+import org.devtoolbox.util.task.implementation.RetryPolicy;
+import org.devtoolbox.util.task.listener.TaskListener;
+import org.devtoolbox.util.task.status.TaskEndStatus;
+import org.devtoolbox.util.task.status.TaskPriority;
+import org.devtoolbox.util.task.status.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Arnaud Lecollaire
+ */
+public class AsynchronousTaskTest {
+
+    @Test
+    public void sharedExecutorTest() throws InterruptedException {
+        final AtomicReference<String> threadName = new AtomicReference<>();
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                threadName.set(Thread.currentThread().getName());
+            }
+        };
+        testTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, testTask.awaitEndStatus());
+        assertTrue(threadName.get().startsWith("task-executor-"));
+    }
+
+    @Test
+    public void callerRunsExecutorTest() throws InterruptedException {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.callerRuns()) {
+            @Override
+            protected void performAction() {
+                thread.set(Thread.currentThread());
+            }
+        };
+        testTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, testTask.awaitEndStatus());
+        assertEquals(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    public void rejectionTest() throws InterruptedException {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        try (final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("test-executor", 1, 0, RejectionPolicy.ABORT)) {
+            final TestAsynchronousTask blockingTask = new TestAsynchronousTask(executor) {
+                @Override
+                protected void performAction() {
+                    try {
+                        blocker.await();
+                    } catch (final InterruptedException error) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            final TestAsynchronousTask rejectedTask = new TestAsynchronousTask(executor);
+            blockingTask.perform();
+            rejectedTask.perform();
+            assertEquals(TaskEndStatus.EXECUTION_FAILED, rejectedTask.awaitEndStatus());
+            blocker.countDown();
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, blockingTask.awaitEndStatus());
+        }
+    }
+
+    @Test
+    public void virtualThreadTest() throws InterruptedException {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final CountDownLatch completionLatch = new CountDownLatch(1);
+        final AsynchronousTask testTask = AsynchronousTask.createOnVirtualThread("virtual task", () -> thread.set(Thread.currentThread()));
+        testTask.addTaskCompletionListener(status -> completionLatch.countDown());
+        testTask.perform();
+        assertTrue(completionLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(thread.get().isVirtual());
+        assertEquals("task-virtual task", thread.get().getName());
+    }
+
+    @Test
+    public void priorityExecutorTest() throws InterruptedException {
+        try (final PriorityTaskExecutor executor = new PriorityTaskExecutor("priority-executor", 1, Duration.ofSeconds(10))) {
+            final List<TaskPriority> executionOrder = runBlockedTasks(executor, Duration.ZERO, TaskPriority.LOW, TaskPriority.NORMAL, TaskPriority.CRITICAL, TaskPriority.HIGH);
+            assertEquals(List.of(TaskPriority.CRITICAL, TaskPriority.HIGH, TaskPriority.NORMAL, TaskPriority.LOW), executionOrder);
+            assertEquals(1, executor.getQueueLatency(TaskPriority.LOW).count());
+            assertEquals(0, executor.getAgedCount());
+        }
+        try (final PriorityTaskExecutor executor = new PriorityTaskExecutor("aging-executor", 1, Duration.ofMillis(20))) {
+            // the low priority task has waited longer than the aging threshold when the worker is released
+            final List<TaskPriority> executionOrder = runBlockedTasks(executor, Duration.ofMillis(50), TaskPriority.LOW, TaskPriority.HIGH);
+            assertEquals(List.of(TaskPriority.LOW, TaskPriority.HIGH), executionOrder);
+            assertEquals(1, executor.getAgedCount());
+            assertTrue(executor.getQueueLatency(TaskPriority.LOW).max() >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    public void priorityExecutorCloseTest() throws InterruptedException {
+        for (int iteration = 0; iteration < 200; iteration++) {
+            final PriorityTaskExecutor executor = new PriorityTaskExecutor("closing-executor", 2, Duration.ofSeconds(10));
+            final AtomicInteger acceptedCount = new AtomicInteger();
+            final AtomicInteger executedCount = new AtomicInteger();
+            final CountDownLatch submitterStarted = new CountDownLatch(1);
+            final Thread submitter = new Thread(() -> {
+                submitterStarted.countDown();
+                try {
+                    while (true) {
+                        executor.execute(null, executedCount::incrementAndGet);
+                        acceptedCount.incrementAndGet();
+                    }
+                } catch (final RejectedExecutionException error) {
+                    // expected once the executor has been closed
+                }
+            });
+            submitter.start();
+            submitterStarted.await();
+            executor.close();
+            submitter.join();
+            // each accepted command must be executed, even if it has been submitted while the executor was closing
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((executedCount.get() < acceptedCount.get()) && (System.nanoTime() < deadline)) {
+                Thread.sleep(1);
+            }
+            assertEquals(acceptedCount.get(), executedCount.get());
+        }
+    }
+
+    private static List<TaskPriority> runBlockedTasks(final TaskExecutor executor, final Duration blockingDuration,
+            final TaskPriority...priorities) throws InterruptedException {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final TestAsynchronousTask blockingTask = new TestAsynchronousTask(executor) {
+            @Override
+            protected void performAction() {
+                try {
+                    blocker.await();
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        blockingTask.setPriority(TaskPriority.CRITICAL);
+        blockingTask.perform();
+        final List<TaskPriority> executionOrder = new CopyOnWriteArrayList<>();
+        final List<TestAsynchronousTask> tasks = new ArrayList<>();
+        for (final TaskPriority priority : priorities) {
+            final TestAsynchronousTask testTask = new TestAsynchronousTask(executor) {
+                @Override
+                protected void performAction() {
+                    executionOrder.add(priority);
+                }
+            };
+            testTask.setPriority(priority);
+            testTask.perform();
+            tasks.add(testTask);
+            if (priority == priorities[0]) {
+                Thread.sleep(blockingDuration.toMillis());
+            }
+        }
+        blocker.countDown();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, blockingTask.awaitEndStatus());
+        for (final TestAsynchronousTask testTask : tasks) {
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, testTask.awaitEndStatus());
+        }
+        return executionOrder;
+    }
+
+    @Test
+    public void softTimeoutTest() throws InterruptedException {
+        final Collection<TaskStatus> status = new ConcurrentLinkedQueue<>();
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                try {
+                    Thread.sleep(500);
+                } catch (final InterruptedException error) {
+                    fail("Task should not have been interrupted.");
+                }
+            }
+        };
+        testTask.setSoftTimeout(Duration.ofMillis(50));
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                status.add(newStatus);
+            }
+        });
+        testTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, testTask.awaitEndStatus());
+        assertTrue(status.contains(TaskStatus.TIMEOUT));
+    }
+
+    @Test
+    public void hardTimeoutTest() throws InterruptedException {
+        final CountDownLatch interruptionLatch = new CountDownLatch(1);
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                try {
+                    Thread.sleep(60_000);
+                } catch (final InterruptedException error) {
+                    interruptionLatch.countDown();
+                }
+            }
+        };
+        testTask.setHardTimeout(Duration.ofMillis(50));
+        final long start = System.nanoTime();
+        testTask.perform();
+        assertEquals(TaskEndStatus.TIMEOUT, testTask.awaitEndStatus());
+        assertTrue(interruptionLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+    }
+
+    @Test
+    public void hardTimeoutStatusTest() throws Exception {
+        // timeout while the task is waiting for a thread : the task is stopped by the timeout
+        final List<Runnable> queuedCommands = new CopyOnWriteArrayList<>();
+        final AtomicBoolean performed = new AtomicBoolean();
+        final TestAsynchronousTask queuedTask = new TestAsynchronousTask((task, command) -> queuedCommands.add(command)) {
+            @Override
+            protected void performAction() {
+                performed.set(true);
+            }
+        };
+        final CompletableFuture<TaskStatus> completionStatus = new CompletableFuture<>();
+        queuedTask.addTaskCompletionListener(endStatus -> completionStatus.complete(queuedTask.getStatus()));
+        queuedTask.setHardTimeout(Duration.ofMillis(20));
+        queuedTask.perform();
+        assertEquals(TaskEndStatus.TIMEOUT, queuedTask.awaitEndStatus());
+        assertEquals(TaskStatus.STOPPED, completionStatus.get(10, TimeUnit.SECONDS));
+        assertEquals(1, queuedCommands.size());
+        queuedCommands.get(0).run();
+        assertFalse(performed.get());
+        assertEquals(TaskStatus.STOPPED, queuedTask.getStatus());
+        // timeout while the action is stopping : the worker completes the run with its own end status
+        final TestAsynchronousTask stoppingTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void afterAction() {
+                try {
+                    Thread.sleep(200);
+                } catch (final InterruptedException error) {
+                    fail("Task should not have been interrupted.");
+                }
+            }
+        };
+        final CompletableFuture<TaskStatus> stoppingCompletionStatus = new CompletableFuture<>();
+        stoppingTask.addTaskCompletionListener(endStatus -> stoppingCompletionStatus.complete(stoppingTask.getStatus()));
+        stoppingTask.setHardTimeout(Duration.ofMillis(20));
+        stoppingTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, stoppingTask.awaitEndStatus());
+        assertEquals(TaskStatus.STOPPED, stoppingCompletionStatus.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelTest() throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch callbackLatch = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                getCancellationToken().addCallback(callbackLatch::countDown);
+                startLatch.countDown();
+                try {
+                    Thread.sleep(60_000);
+                } catch (final InterruptedException error) {
+                    interrupted.set(true);
+                    getCancellationToken().throwIfCancelled();
+                }
+            }
+        };
+        testTask.setCancellationGracePeriod(null);
+        testTask.perform();
+        assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+        testTask.cancel(true);
+        assertEquals(TaskEndStatus.ABORTED, testTask.awaitEndStatus());
+        assertTrue(callbackLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        assertFalse(testTask.isExecutionFailed());
+    }
+
+    @Test
+    public void cancellationGracePeriodTest() throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                startLatch.countDown();
+                // an action ignoring both the stop request and the interruption
+                while (releaseLatch.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        };
+        testTask.setCancellationGracePeriod(Duration.ofMillis(50));
+        testTask.perform();
+        try {
+            assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+            final long start = System.nanoTime();
+            testTask.cancel(true);
+            assertEquals(TaskEndStatus.ABORTED, testTask.awaitEndStatus());
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+            assertEquals(TaskStatus.STARTED, testTask.getStatus());
+        } finally {
+            releaseLatch.countDown();
+        }
+    }
+
+    @Test
+    public void timeoutOverlapTest() throws InterruptedException {
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final AtomicInteger startsCount = new AtomicInteger();
+        final List<TaskEndStatus> endStatuses = new CopyOnWriteArrayList<>();
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                if (startsCount.incrementAndGet() > 1) {
+                    return;
+                }
+                // an action ignoring both the stop request and the interruption
+                while (releaseLatch.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        };
+        testTask.addTaskCompletionListener(endStatuses::add);
+        testTask.setHardTimeout(Duration.ofMillis(50));
+        testTask.perform();
+        try {
+            assertEquals(TaskEndStatus.TIMEOUT, testTask.awaitEndStatus());
+            // the action of the timed out run is still running, the task can't be performed again
+            testTask.perform();
+            assertEquals(1, startsCount.get());
+        } finally {
+            releaseLatch.countDown();
+        }
+        // the run is released once its action has exited, its late completion is ignored
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((startsCount.get() < 2) && (System.nanoTime() < deadline)) {
+            testTask.perform();
+            Thread.sleep(1);
+        }
+        assertEquals(2, startsCount.get());
+        while ((endStatuses.size() < 2) && (System.nanoTime() < deadline)) {
+            Thread.sleep(1);
+        }
+        assertEquals(List.of(TaskEndStatus.TIMEOUT, TaskEndStatus.EXECUTION_SUCCESS), endStatuses);
+        assertEquals(TaskStatus.STOPPED, testTask.getStatus());
+    }
+
+    @Test
+    public void completionFutureTest() throws Exception {
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared());
+        final CompletableFuture<TaskEndStatus> firstCompletion = testTask.completion();
+        assertFalse(firstCompletion.isDone());
+        testTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, firstCompletion.get(10, TimeUnit.SECONDS));
+        // the future of the last execution stays completed until the next execution
+        assertTrue(testTask.completion().isDone());
+
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final TestAsynchronousTask blockedTask = new TestAsynchronousTask(TaskExecutor.virtualThreads()) {
+            @Override
+            protected void performAction() {
+                try {
+                    releaseLatch.await();
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        blockedTask.perform();
+        final CompletableFuture<TaskEndStatus> blockedCompletion = blockedTask.completion();
+        assertFalse(blockedCompletion.isDone());
+        releaseLatch.countDown();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, blockedCompletion.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void awaitTest() throws InterruptedException {
+        final List<AsynchronousTask> tasks = new ArrayList<>();
+        for (int index = 0; index < 10_000; index++) {
+            tasks.add(AsynchronousTask.create("task " + index, TaskExecutor.virtualThreads(), () -> {}));
+        }
+        tasks.forEach(AsynchronousTask::perform);
+        assertTrue(Task.awaitAll(tasks, Duration.ofSeconds(30)));
+        assertTrue(tasks.contains(Task.awaitAny(tasks, Duration.ofSeconds(10))));
+
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final AsynchronousTask blockedTask = AsynchronousTask.create("blocked task", TaskExecutor.virtualThreads(), () -> {
+            try {
+                releaseLatch.await();
+            } catch (final InterruptedException error) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blockedTask.perform();
+        try {
+            assertFalse(Task.awaitAll(List.of(tasks.get(0), blockedTask), Duration.ofMillis(50)));
+            assertEquals(null, Task.awaitAny(List.of(blockedTask), Duration.ofMillis(50)));
+            assertEquals(tasks.get(0), Task.awaitAny(List.of(blockedTask, tasks.get(0)), Duration.ofSeconds(10)));
+        } finally {
+            releaseLatch.countDown();
+        }
+    }
+
+    @Test
+    public void retryTest() throws InterruptedException {
+        final AtomicInteger executionsCount = new AtomicInteger();
+        final List<Integer> retries = new CopyOnWriteArrayList<>();
+        final AtomicInteger errorsCount = new AtomicInteger();
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                if (executionsCount.incrementAndGet() < 3) {
+                    throw new IllegalStateException("test failure");
+                }
+            }
+        };
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskRetry(final int failedAttempt, final Duration delay, final TaskException error) {
+                retries.add(Integer.valueOf(failedAttempt));
+            }
+            @Override
+            public void handleTaskError(final TaskException error) {
+                errorsCount.incrementAndGet();
+            }
+        });
+        testTask.setRetryPolicy(RetryPolicy.exponentialBackoff(5, Duration.ofMillis(10)));
+        testTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, testTask.awaitEndStatus());
+        assertEquals(3, executionsCount.get());
+        assertEquals(List.of(Integer.valueOf(1), Integer.valueOf(2)), retries);
+        assertEquals(3, testTask.getAttempt());
+        assertEquals(0, errorsCount.get());
+    }
+
+    @Test
+    public void exhaustedRetriesTest() throws InterruptedException {
+        final AtomicInteger executionsCount = new AtomicInteger();
+        final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                executionsCount.incrementAndGet();
+                throw new IllegalStateException("test failure");
+            }
+        };
+        testTask.setRetryPolicy(RetryPolicy.exponentialBackoff(3, Duration.ofMillis(1)).withJitter(0));
+        testTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_FAILED, testTask.awaitEndStatus());
+        assertEquals(3, executionsCount.get());
+
+        final RetryPolicy policy = RetryPolicy.exponentialBackoff(10, Duration.ofMillis(100)).withMaxDelay(Duration.ofMillis(300))
+            .withRetryOn(error -> error.getCause() instanceof IllegalStateException);
+        assertEquals(Duration.ofMillis(300), policy.withJitter(0).getDelay(4));
+        assertTrue(policy.getDelay(2).compareTo(Duration.ofMillis(100)) >= 0);
+        assertFalse(policy.shouldRetry(1, new TaskException(TaskErrorType.TASK_EXECUTION_FAILED, new IllegalArgumentException())));
+        assertFalse(policy.shouldRetry(10, new TaskException(TaskErrorType.TASK_EXECUTION_FAILED, new IllegalStateException())));
+    }
+
+    @Test
+    public void bulkheadTest() throws InterruptedException {
+        final Bulkhead bulkhead = new Bulkhead("test bulkhead", 2, 10, null);
+        final AtomicInteger runningCount = new AtomicInteger();
+        final AtomicInteger maxRunningCount = new AtomicInteger();
+        final List<TestAsynchronousTask> tasks = new ArrayList<>();
+        for (int index = 0; index < 8; index++) {
+            final TestAsynchronousTask testTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+                @Override
+                protected void performAction() {
+                    maxRunningCount.accumulateAndGet(runningCount.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    runningCount.decrementAndGet();
+                }
+            };
+            testTask.setBulkhead(bulkhead);
+            tasks.add(testTask);
+        }
+        tasks.forEach(Task::perform);
+        for (final TestAsynchronousTask testTask : tasks) {
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, testTask.awaitEndStatus());
+        }
+        assertTrue(maxRunningCount.get() <= 2, "bulkhead limit exceeded : " + maxRunningCount.get());
+        // permits are released once the action thread is done, right after the completion has been sent
+        awaitReleasedPermits(bulkhead);
+        assertEquals(0, bulkhead.getWaitingTasksCount());
+        assertEquals(8, bulkhead.getWaitTimes().count());
+    }
+
+    @Test
+    public void bulkheadRejectionTest() throws InterruptedException {
+        final Bulkhead bulkhead = new Bulkhead("full bulkhead", 1, 1, Duration.ofMillis(50));
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final TestAsynchronousTask blockingTask = new TestAsynchronousTask(TaskExecutor.shared()) {
+            @Override
+            protected void performAction() {
+                try {
+                    releaseLatch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        blockingTask.setBulkhead(bulkhead);
+        final List<Object> errors = new CopyOnWriteArrayList<>();
+        final TaskListener errorListener = new TaskListener() {
+            @Override
+            public void handleTaskError(final TaskException error) {
+                errors.add(error.getIdentifier());
+            }
+        };
+        final TestAsynchronousTask waitingTask = new TestAsynchronousTask(TaskExecutor.shared());
+        waitingTask.setBulkhead(bulkhead);
+        waitingTask.addTaskListener(errorListener);
+        final TestAsynchronousTask rejectedTask = new TestAsynchronousTask(TaskExecutor.shared());
+        rejectedTask.setBulkhead(bulkhead);
+        rejectedTask.addTaskListener(errorListener);
+
+        blockingTask.perform();
+        waitingTask.perform();
+        rejectedTask.perform();
+        assertEquals(TaskEndStatus.REJECTED, rejectedTask.awaitEndStatus());
+        assertEquals(TaskEndStatus.REJECTED, waitingTask.awaitEndStatus());
+        releaseLatch.countDown();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, blockingTask.awaitEndStatus());
+        assertTrue(errors.contains(TaskErrorType.BULKHEAD_FULL));
+        assertTrue(errors.contains(TaskErrorType.BULKHEAD_TIMEOUT));
+        assertEquals(1, bulkhead.getRejectedTasksCount());
+        assertEquals(1, bulkhead.getTimedOutTasksCount());
+        awaitReleasedPermits(bulkhead);
+    }
+
+    @Test
+    public void bulkheadCancellationTest() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead("cancellation bulkhead", 1, 1, null);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final TestAsynchronousTask blockingTask = new BlockingAsynchronousTask(releaseLatch);
+        blockingTask.setBulkhead(bulkhead);
+        final TestAsynchronousTask waitingTask = new TestAsynchronousTask(TaskExecutor.shared());
+        waitingTask.setBulkhead(bulkhead);
+
+        blockingTask.perform();
+        waitingTask.perform();
+        assertEquals(1, bulkhead.getWaitingTasksCount());
+        waitingTask.cancel(false);
+        releaseLatch.countDown();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, blockingTask.awaitEndStatus());
+        // the cancelled task is aborted when it gets its permit, which is released right away
+        assertEquals(TaskEndStatus.ABORTED, waitingTask.awaitEndStatus());
+        assertEquals(TaskStatus.STOPPED, waitingTask.getStatus());
+        awaitReleasedPermits(bulkhead);
+        // and it can be performed again
+        waitingTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, waitingTask.completion().get(10, TimeUnit.SECONDS));
+        awaitReleasedPermits(bulkhead);
+
+        final Bulkhead timedBulkhead = new Bulkhead("timed cancellation bulkhead", 1, 1, Duration.ofMillis(50));
+        final CountDownLatch timedReleaseLatch = new CountDownLatch(1);
+        final TestAsynchronousTask timedBlockingTask = new BlockingAsynchronousTask(timedReleaseLatch);
+        timedBlockingTask.setBulkhead(timedBulkhead);
+        final TestAsynchronousTask timedOutTask = new TestAsynchronousTask(TaskExecutor.shared());
+        timedOutTask.setBulkhead(timedBulkhead);
+
+        timedBlockingTask.perform();
+        timedOutTask.perform();
+        timedOutTask.cancel(false);
+        // a cancelled task is aborted, and not rejected, when its permit times out
+        assertEquals(TaskEndStatus.ABORTED, timedOutTask.awaitEndStatus());
+        assertEquals(TaskStatus.STOPPED, timedOutTask.getStatus());
+        timedReleaseLatch.countDown();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, timedBlockingTask.awaitEndStatus());
+        awaitReleasedPermits(timedBulkhead);
+    }
+
+    private static void awaitReleasedPermits(final Bulkhead bulkhead) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((bulkhead.getRunningTasksCount() != 0) && (System.nanoTime() < deadline)) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, bulkhead.getRunningTasksCount());
+    }
+
+    @Test
+    public void eventBatchingTest() throws InterruptedException {
+        final ExecutorService resultThread = Executors.newSingleThreadExecutor();
+        try {
+            final AtomicInteger hopsCount = new AtomicInteger();
+            final List<Object> events = new ArrayList<>();
+            final CountDownLatch completionLatch = new CountDownLatch(1);
+            final AsynchronousTask testTask = new AsynchronousTask("batched task", TaskExecutor.shared()) {
+                @Override
+                protected void performAction() {
+                    for (int index = 0; index < 50_000; index++) {
+                        sendTaskMessage("message {0}", Integer.toString(index));
+                    }
+                }
+                @Override
+                protected boolean isInResultThread() {
+                    return false;
+                }
+                @Override
+                protected void executeInResultThread(final Runnable runnable) {
+                    hopsCount.incrementAndGet();
+                    resultThread.execute(runnable);
+                }
+            };
+            testTask.setEventBatching(EventBatching.DEFAULT.withLatestStatusOnly(true).withMaxMessages(10).withMaxLatency(Duration.ofMillis(20)));
+            testTask.addTaskListener(new TaskListener() {
+                @Override
+                public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                    events.add(newStatus);
+                }
+                @Override
+                public void handleTaskMessage(final String message) {
+                    events.add(message);
+                }
+            });
+            testTask.addTaskCompletionListener(endStatus -> {
+                events.add(endStatus);
+                completionLatch.countDown();
+            });
+            testTask.perform();
+            assertTrue(completionLatch.await(10, TimeUnit.SECONDS));
+            assertTrue(hopsCount.get() < 1_000, "too many hops to the result thread : " + hopsCount.get());
+            assertTrue(testTask.getCoalescedEventsCount() > 0);
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, events.get(events.size() - 1));
+            assertEquals(TaskStatus.STOPPED, events.get(events.size() - 2));
+            assertTrue(events.contains("message 49999"));
+            int lastMessage = -1;
+            for (final Object event : events) {
+                if (event instanceof String message) {
+                    final int messageIndex = Integer.parseInt(message.substring("message ".length()));
+                    assertTrue(messageIndex > lastMessage, "messages are not ordered");
+                    lastMessage = messageIndex;
+                }
+            }
+        } finally {
+            resultThread.shutdown();
+        }
+    }
+
+    @Test
+    public void statusCoalescingTest() {
+        final List<Runnable> hops = new ArrayList<>();
+        final List<String> events = new ArrayList<>();
+        final AsynchronousTask testTask = new AsynchronousTask("coalesced task", TaskExecutor.callerRuns()) {
+            @Override
+            protected void performAction() {
+            }
+            @Override
+            protected boolean isInResultThread() {
+                return false;
+            }
+            @Override
+            protected void executeInResultThread(final Runnable runnable) {
+                hops.add(runnable);
+            }
+        };
+        testTask.setEventBatching(EventBatching.DEFAULT.withLatestStatusOnly(true));
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                events.add(oldStatus + " -> " + newStatus);
+            }
+            @Override
+            public void handleTaskMessage(final String message) {
+                events.add(message);
+            }
+        });
+        testTask.setStatus(TaskStatus.STARTING);
+        testTask.setStatus(TaskStatus.STARTED);
+        testTask.sendTaskMessage("message");
+        testTask.setStatus(TaskStatus.STOPPING);
+        testTask.setStatus(TaskStatus.STOPPED);
+        // all the events are delivered by a single batch
+        assertEquals(1, hops.size());
+        hops.get(0).run();
+        // only consecutive status changes are merged, none of them is moved behind the message
+        assertEquals(List.of("INITIALIZED -> STARTED", "message", "STARTED -> STOPPED"), events);
+        assertEquals(2, testTask.getCoalescedEventsCount());
+    }
+
+
+    protected static class TestAsynchronousTask extends AsynchronousTask {
+
+        private final CountDownLatch completionLatch = new CountDownLatch(1);
+        private final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+
+
+        protected TestAsynchronousTask(final TaskExecutor executor) {
+            super("test asynchronous task", executor);
+            addTaskCompletionListener(status -> {
+                endStatus.set(status);
+                completionLatch.countDown();
+            });
+        }
+
+        protected TaskEndStatus awaitEndStatus() throws InterruptedException {
+            assertTrue(completionLatch.await(10, TimeUnit.SECONDS), "task did not complete in time");
+            return endStatus.get();
+        }
+
+        @Override
+        protected void performAction() {
+        }
+
+        @Override
+        protected boolean isInResultThread() {
+            return true;
+        }
+
+        @Override
+        protected void executeInResultThread(final Runnable runnable) {
+            runnable.run();
+        }
+    }
+
+    private static class BlockingAsynchronousTask extends TestAsynchronousTask {
+
+        private final CountDownLatch releaseLatch;
+
+
+        private BlockingAsynchronousTask(final CountDownLatch releaseLatch) {
+            super(TaskExecutor.shared());
+            this.releaseLatch = releaseLatch;
+        }
+
+        @Override
+        protected void performAction() {
+            try {
+                releaseLatch.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -20,25 +20,72 @@ package org.devtoolbox.util.task.test;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import org.devtoolbox.util.task.Task;
 import org.devtoolbox.util.task.error.TaskException;
+import org.devtoolbox.util.task.event.TaskEvent;
+import org.devtoolbox.util.task.event.TaskEventBus;
+import org.devtoolbox.util.task.event.TaskEventFilter;
+import org.devtoolbox.util.task.event.TaskEventHandler;
+import org.devtoolbox.util.task.executor.OverlapPolicy;
+import org.devtoolbox.util.task.executor.RecurringExecution;
+import org.devtoolbox.util.task.executor.RecurringSchedule;
+import org.devtoolbox.util.task.executor.TaskExecutor;
+import org.devtoolbox.util.task.executor.TaskTimer;
+import org.devtoolbox.util.task.implementation.AsynchronousTask;
+import org.devtoolbox.util.task.implementation.RetryPolicy;
+import org.devtoolbox.util.task.implementation.SplittableTask;
 import org.devtoolbox.util.task.implementation.SynchronousTask;
+import org.devtoolbox.util.task.listener.AsyncTaskListener;
+import org.devtoolbox.util.task.listener.OverflowPolicy;
 import org.devtoolbox.util.task.listener.TaskCompletionListener;
 import org.devtoolbox.util.task.listener.TaskListener;
+import org.devtoolbox.util.task.message.MessageTemplateCache;
+import org.devtoolbox.util.task.message.TaskMessage;
+import org.devtoolbox.util.task.metrics.LatencyHistogram;
+import org.devtoolbox.util.task.metrics.LatencySnapshot;
+import org.devtoolbox.util.task.metrics.TaskMetrics;
+import org.devtoolbox.util.task.metrics.TaskPhase;
 import org.devtoolbox.util.task.status.TaskEndStatus;
 import org.devtoolbox.util.task.status.TaskStatus;
 import org.junit.jupiter.api.Test;
 
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 
 /**
@@ -298,6 +345,931 @@ public class SynchronousTaskTest {
         }
     }
 
+    @Test
+    public void concurrentListenersTest() throws InterruptedException {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                while (running.get()) {
+                    notifyTaskListeners(listener -> listener.handleTaskMessage("tick"));
+                }
+            }
+        };
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskError(final TaskException error) {
+                failure.set(error);
+            }
+        });
+        final Thread worker = new Thread(testTask::perform);
+        worker.setUncaughtExceptionHandler((thread, error) -> failure.set(error));
+        worker.start();
+        for (int index = 0; index < 10_000; index++) {
+            final TaskListener listener = new TaskListener() {};
+            testTask.addTaskListener(listener);
+            testTask.removeTaskListener(listener);
+        }
+        running.set(false);
+        worker.join();
+        assertEquals(null, failure.get());
+    }
+
+    @Test
+    public void selfRemovingListenerTest() {
+        final Collection<TaskStatus> status = new ArrayList<>();
+        final SynchronousTask testTask = new TestTask();
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                status.add(newStatus);
+                if (newStatus == TaskStatus.STARTED) {
+                    testTask.removeTaskListener(this);
+                }
+            }
+        });
+        testTask.perform();
+        assertArrayEquals(new TaskStatus[] { TaskStatus.STARTING, TaskStatus.STARTED }, status.toArray());
+    }
+
+    @Test
+    public void deferredMessageFormattingTest() {
+        final Collection<TaskMessage> messages = new ArrayList<>();
+        final Collection<String> formattedMessages = new ArrayList<>();
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                sendTaskMessage("item {0} processed", 42);
+            }
+        };
+        final TaskListener structuredListener = new TaskListener() {
+            @Override
+            public void handleTaskMessageTemplate(final TaskMessage message) {
+                messages.add(message);
+            }
+        };
+        testTask.addTaskListener(structuredListener);
+        testTask.perform();
+        assertEquals(1, messages.size());
+        final TaskMessage message = messages.iterator().next();
+        assertEquals("item {0} processed", message.getPattern());
+        assertFalse(message.isFormatted());
+
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskMessage(final String message) {
+                formattedMessages.add(message);
+            }
+        });
+        testTask.perform();
+        assertTrue(formattedMessages.contains("item 42 processed"));
+    }
+
+    @Test
+    public void asyncListenerTest() throws InterruptedException {
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final List<TaskStatus> statuses = new CopyOnWriteArrayList<>();
+        final TaskListener slowListener = new TaskListener() {
+            @Override
+            public void handleTaskMessage(final String message) {
+                try {
+                    releaseLatch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+                messages.add(message);
+            }
+            @Override
+            public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                statuses.add(newStatus);
+            }
+        };
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                for (int index = 0; index < 1_000; index++) {
+                    sendTaskMessage("message {0}", Integer.valueOf(index));
+                }
+            }
+        };
+        final AsyncTaskListener asyncListener = new AsyncTaskListener(slowListener, 10, OverflowPolicy.DROP_OLDEST);
+        testTask.addTaskListener(asyncListener);
+        // the task is not blocked by its listener
+        testTask.perform();
+        assertEquals(TaskStatus.STOPPED, testTask.getStatus());
+        releaseLatch.countDown();
+        asyncListener.close();
+        assertTrue(asyncListener.awaitTermination(Duration.ofSeconds(10)));
+        assertTrue(asyncListener.getDroppedCount() > 0);
+        assertTrue(asyncListener.getLaggingCount() > 0);
+        assertEquals(1_004 - asyncListener.getDroppedCount(), asyncListener.getDeliveredCount());
+        // the latest events are kept
+        assertEquals(TaskStatus.STOPPED, statuses.get(statuses.size() - 1));
+        assertEquals("message 999", messages.get(messages.size() - 1));
+
+        final List<TaskStatus> coalescedStatuses = new CopyOnWriteArrayList<>();
+        final CountDownLatch deliveryLatch = new CountDownLatch(1);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final TaskListener blockedListener = new TaskListener() {
+            @Override
+            public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                deliveryLatch.countDown();
+                try {
+                    startLatch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+                coalescedStatuses.add(oldStatus);
+                coalescedStatuses.add(newStatus);
+            }
+        };
+        final AsyncTaskListener coalescingListener = new AsyncTaskListener(blockedListener, 10, OverflowPolicy.COALESCE_STATUS);
+        final SynchronousTask statusTask = new TestTask();
+        statusTask.addTaskListener(coalescingListener);
+        statusTask.setStatus(TaskStatus.STARTING);
+        assertTrue(deliveryLatch.await(10, TimeUnit.SECONDS));
+        // the following changes are merged while the listener is busy, a change back to the pending old status is dropped
+        for (final TaskStatus status : List.of(TaskStatus.STARTED, TaskStatus.STOPPING, TaskStatus.STOPPED, TaskStatus.STARTING, TaskStatus.STOPPED)) {
+            statusTask.setStatus(status);
+        }
+        startLatch.countDown();
+        coalescingListener.close();
+        assertTrue(coalescingListener.awaitTermination(Duration.ofSeconds(10)));
+        assertEquals(List.of(TaskStatus.INITIALIZED, TaskStatus.STARTING, TaskStatus.STARTING, TaskStatus.STOPPED), coalescedStatuses);
+        // each merge counts once, the change back to STARTING cancelled the pending STARTING -> STOPPED change
+        assertEquals(3, coalescingListener.getCoalescedCount());
+        assertEquals(0, coalescingListener.getDroppedCount());
+
+        // only the last pending event is merged, a status change is never moved behind a later message
+        final List<String> orderedEvents = new CopyOnWriteArrayList<>();
+        final CountDownLatch orderDeliveryLatch = new CountDownLatch(1);
+        final CountDownLatch orderStartLatch = new CountDownLatch(1);
+        final TaskListener orderListener = new TaskListener() {
+            @Override
+            public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                orderDeliveryLatch.countDown();
+                try {
+                    orderStartLatch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+                orderedEvents.add(oldStatus + " -> " + newStatus);
+            }
+
+            @Override
+            public void handleTaskMessage(final String message) {
+                orderedEvents.add(message);
+            }
+        };
+        final AsyncTaskListener orderingListener = new AsyncTaskListener(orderListener, 10, OverflowPolicy.COALESCE_STATUS);
+        orderingListener.handleTaskStatusChange(TaskStatus.INITIALIZED, TaskStatus.STARTING);
+        assertTrue(orderDeliveryLatch.await(10, TimeUnit.SECONDS));
+        orderingListener.handleTaskStatusChange(TaskStatus.STARTING, TaskStatus.STARTED);
+        orderingListener.handleTaskMessage("message");
+        orderingListener.handleTaskStatusChange(TaskStatus.STARTED, TaskStatus.STOPPING);
+        orderingListener.handleTaskStatusChange(TaskStatus.STOPPING, TaskStatus.STOPPED);
+        orderStartLatch.countDown();
+        orderingListener.close();
+        assertTrue(orderingListener.awaitTermination(Duration.ofSeconds(10)));
+        assertEquals(List.of("INITIALIZED -> STARTING", "STARTING -> STARTED", "message", "STARTED -> STOPPED"), orderedEvents);
+        assertEquals(1, orderingListener.getCoalescedCount());
+    }
+
+    @Test
+    public void eventPublisherTest() throws InterruptedException {
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                for (int index = 0; index < 100; index++) {
+                    sendTaskMessage("message {0}", Integer.valueOf(index));
+                }
+            }
+        };
+        testTask.events().setBufferSize(16);
+        final RecordingSubscriber slowSubscriber = new RecordingSubscriber(5);
+        final RecordingSubscriber fastSubscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        testTask.events().subscribe(slowSubscriber);
+        testTask.events().subscribe(fastSubscriber);
+        testTask.perform();
+        final int eventsCount = fastSubscriber.events.size();
+        assertEquals(new TaskEvent.StatusChange(testTask.getName(), TaskStatus.INITIALIZED, TaskStatus.STARTING), fastSubscriber.events.get(0));
+        assertEquals(100, fastSubscriber.events.stream().filter(TaskEvent.Message.class::isInstance).count());
+        assertEquals(new TaskEvent.Completion(testTask.getName(), TaskEndStatus.EXECUTION_SUCCESS),
+                fastSubscriber.events.stream().filter(TaskEvent.Completion.class::isInstance).findFirst().orElseThrow());
+        // the slow subscriber only received what it requested, its buffer is full and the next events were dropped
+        assertEquals(fastSubscriber.events.subList(0, 5), slowSubscriber.events);
+        assertEquals(eventsCount - 5 - 16, testTask.events().getDroppedCount());
+        slowSubscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(fastSubscriber.events.subList(0, 21), slowSubscriber.events);
+        slowSubscriber.subscription.cancel();
+        fastSubscriber.subscription.cancel();
+        assertEquals(0, testTask.events().getSubscribersCount());
+
+        // with the blocking policy, the task waits for its subscriber and no event is lost
+        final SynchronousTask blockedTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                for (int index = 0; index < 1_000; index++) {
+                    sendTaskMessage("message {0}", Integer.valueOf(index));
+                }
+            }
+        };
+        blockedTask.events().setBufferSize(4);
+        blockedTask.events().setOverflowPolicy(OverflowPolicy.BLOCK);
+        final RecordingSubscriber pullingSubscriber = new RecordingSubscriber(0);
+        blockedTask.events().subscribe(pullingSubscriber);
+        final Thread taskThread = new Thread(blockedTask::perform);
+        taskThread.start();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (taskThread.isAlive() && (System.nanoTime() < deadline)) {
+            pullingSubscriber.subscription.request(1);
+            Thread.onSpinWait();
+        }
+        taskThread.join(10_000);
+        pullingSubscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(TaskStatus.STOPPED, blockedTask.getStatus());
+        assertEquals(0, blockedTask.events().getDroppedCount());
+        final List<String> messages = pullingSubscriber.events.stream()
+                .filter(TaskEvent.Message.class::isInstance)
+                .map(event -> ((TaskEvent.Message) event).message().getText())
+                .toList();
+        assertEquals(1_000, messages.size());
+        assertEquals("message 999", messages.get(999));
+
+        // an invalid request is reported to the subscriber
+        pullingSubscriber.subscription.request(0);
+        assertTrue(pullingSubscriber.error instanceof IllegalArgumentException);
+        assertEquals(0, blockedTask.events().getSubscribersCount());
+        assertThrows(IllegalArgumentException.class, () -> blockedTask.events().setOverflowPolicy(OverflowPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void eventBusTest() throws InterruptedException {
+        final TaskEventBus bus = TaskEventBus.shared();
+        // only touched by the handler thread, read once all the events have been handled
+        final Map<String, Integer> messagesCounts = new HashMap<>();
+        final Map<TaskStatus, Integer> statusCounts = new EnumMap<>(TaskStatus.class);
+        final AtomicInteger completionsCount = new AtomicInteger();
+        final AtomicInteger batchesCount = new AtomicInteger();
+        final TaskEventHandler handler = (event, sequence, endOfBatch) -> {
+            switch (event) {
+                case TaskEvent.StatusChange statusChange -> statusCounts.merge(statusChange.newStatus(), 1, Integer::sum);
+                case TaskEvent.Message message -> messagesCounts.merge(message.taskName(), 1, Integer::sum);
+                case TaskEvent.Completion completion -> completionsCount.incrementAndGet();
+                case TaskEvent.Failure failure -> fail("unexpected error " + failure.error());
+            }
+            if (endOfBatch) {
+                batchesCount.incrementAndGet();
+            }
+        };
+        final int threadsCount = 8;
+        final int tasksCount = 50;
+        bus.setFilter(TaskEventFilter.taskNames(taskName -> taskName.startsWith("event bus task")));
+        bus.addHandler(handler);
+        try {
+            final List<Thread> threads = new ArrayList<>();
+            for (int threadIndex = 0; threadIndex < threadsCount; threadIndex++) {
+                final int currentThreadIndex = threadIndex;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int taskIndex = 0; taskIndex < tasksCount; taskIndex++) {
+                        new MessagesTask("event bus task " + currentThreadIndex + "-" + taskIndex, 10).perform();
+                    }
+                }));
+            }
+            // filtered out before the event is created
+            new MessagesTask("other task", 1).perform();
+            for (final Thread thread : threads) {
+                thread.join(10_000);
+            }
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((completionsCount.get() < threadsCount * tasksCount) && (System.nanoTime() < deadline)) {
+                Thread.sleep(1);
+            }
+        } finally {
+            bus.removeHandler(handler);
+            bus.setFilter(null);
+        }
+        assertEquals(0, bus.getDroppedCount());
+        assertEquals(threadsCount * tasksCount, completionsCount.get());
+        assertEquals(threadsCount * tasksCount, messagesCounts.size());
+        assertTrue(messagesCounts.values().stream().allMatch(count -> count == 10));
+        assertFalse(messagesCounts.containsKey("other task"));
+        assertEquals(Integer.valueOf(threadsCount * tasksCount), statusCounts.get(TaskStatus.STARTED));
+        assertEquals(Integer.valueOf(threadsCount * tasksCount), statusCounts.get(TaskStatus.STOPPED));
+        assertTrue(batchesCount.get() > 0);
+        assertEquals(0, bus.getHandlersCount());
+
+        // without handler, nothing is published
+        final long publishedCount = bus.getPublishedCount();
+        new MessagesTask("event bus task without handler", 1).perform();
+        assertEquals(publishedCount, bus.getPublishedCount());
+    }
+
+    @Test
+    public void eventBusHandlerRegistrationTest() throws InterruptedException {
+        final TaskEventBus bus = new TaskEventBus("registration-bus", 16);
+        final TaskEvent event = new TaskEvent.Completion("published task", TaskEndStatus.EXECUTION_SUCCESS);
+        final AtomicBoolean publishing = new AtomicBoolean(true);
+        bus.addHandler((handledEvent, sequence, endOfBatch) -> {});
+        final List<Thread> publishers = new ArrayList<>();
+        for (int index = 0; index < 3; index++) {
+            publishers.add(Thread.ofPlatform().start(() -> {
+                while (publishing.get()) {
+                    bus.publish(event);
+                }
+            }));
+        }
+        int stalledHandlersCount = 0;
+        try {
+            // handlers added while the slots are reused : each one must follow the published events
+            for (int index = 0; index < 2_000; index++) {
+                final AtomicLong handledSequence = new AtomicLong(-1);
+                final TaskEventHandler handler = (handledEvent, sequence, endOfBatch) -> handledSequence.set(sequence);
+                final long expectedSequence = bus.getPublishedCount() + 2 * bus.getBufferSize();
+                bus.addHandler(handler);
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+                while ((handledSequence.get() < expectedSequence) && (System.nanoTime() < deadline)) {
+                    Thread.onSpinWait();
+                }
+                if (handledSequence.get() < expectedSequence) {
+                    stalledHandlersCount++;
+                }
+                bus.removeHandler(handler);
+            }
+        } finally {
+            publishing.set(false);
+            for (final Thread publisher : publishers) {
+                publisher.join(10_000);
+            }
+            bus.close();
+        }
+        assertEquals(0, stalledHandlersCount);
+    }
+
+    @Test
+    public void progressTest() {
+        final int itemsCount = 1_000_000;
+        final List<Long> notifiedProgress = new ArrayList<>();
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                for (int index = 0; index < itemsCount; index++) {
+                    updateProgress(index + 1, itemsCount);
+                }
+            }
+        };
+        testTask.setProgressNotificationInterval(Duration.ofHours(1));
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskProgress(final long workDone, final long totalWork) {
+                assertEquals(itemsCount, totalWork);
+                notifiedProgress.add(workDone);
+            }
+        });
+        assertEquals(-1, testTask.getProgress(), 0);
+        final ReadOnlyDoubleProperty progressProperty = testTask.progressProperty();
+        testTask.perform();
+        assertTrue(notifiedProgress.size() <= 2, "progress notifications are not throttled : " + notifiedProgress.size());
+        assertEquals(Long.valueOf(itemsCount), notifiedProgress.get(notifiedProgress.size() - 1));
+        assertEquals(1, progressProperty.get(), 0);
+
+        // updates are throttled too while the total is unknown
+        final AtomicInteger unknownTotalNotifications = new AtomicInteger();
+        final SynchronousTask unknownTotalTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                for (int index = 0; index < itemsCount; index++) {
+                    updateProgress(index + 1, -1);
+                }
+            }
+        };
+        unknownTotalTask.setProgressNotificationInterval(Duration.ofHours(1));
+        unknownTotalTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskProgress(final long workDone, final long totalWork) {
+                unknownTotalNotifications.incrementAndGet();
+            }
+        });
+        unknownTotalTask.perform();
+        assertTrue(unknownTotalNotifications.get() <= 2, "progress notifications are not throttled : " + unknownTotalNotifications.get());
+        assertEquals(itemsCount, unknownTotalTask.getWorkDone());
+
+        // the first update of each run is notified, whatever the interval
+        final List<Long> firstNotifiedProgress = new ArrayList<>();
+        final SynchronousTask firstUpdateTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                updateProgress(1, 10);
+                firstNotifiedProgress.add(getWorkDone());
+                updateProgress(2, 10);
+            }
+        };
+        firstUpdateTask.setProgressNotificationInterval(Duration.ofDays(36_500));
+        firstUpdateTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskProgress(final long workDone, final long totalWork) {
+                firstNotifiedProgress.add(workDone);
+            }
+        });
+        firstUpdateTask.perform();
+        firstUpdateTask.perform();
+        assertEquals(List.of(1L, 1L, 2L, 1L, 1L, 2L), firstNotifiedProgress);
+    }
+
+    @Test
+    public void progressConsistencyTest() throws InterruptedException {
+        final CountDownLatch doneLatch = new CountDownLatch(1);
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                // the work done is always half of the total work
+                for (long total = 2; doneLatch.getCount() > 0; total += 2) {
+                    updateProgress(total / 2, total);
+                }
+            }
+        };
+        final Thread worker = Thread.ofPlatform().start(testTask::perform);
+        try {
+            for (int index = 0; index < 1_000_000; index++) {
+                final double progress = testTask.getProgress();
+                assertTrue((progress == -1) || (progress == 0.5), "inconsistent progress : " + progress);
+            }
+        } finally {
+            doneLatch.countDown();
+            worker.join();
+        }
+    }
+
+    @Test
+    public void messageTemplateCacheTest() {
+        final MessageTemplateCache cache = new MessageTemplateCache(10);
+        assertEquals("a 1", cache.format("a {0}", 1));
+        assertEquals("a 2", cache.format("a {0}", 2));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        for (int index = 0; index < 100; index++) {
+            assertEquals(index + " 1", cache.format(index + " {0}", 1));
+        }
+        assertTrue(cache.getSize() <= cache.getCapacity());
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void messageTemplateContentionTest() throws Exception {
+        final MessageTemplateCache cache = new MessageTemplateCache(10);
+        final CountDownLatch formattingLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final Object blockingParameter = new Object() {
+            @Override
+            public String toString() {
+                formattingLatch.countDown();
+                try {
+                    releaseLatch.await();
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+                return "blocked";
+            }
+        };
+        final CompletableFuture<String> blockedMessage = CompletableFuture.supplyAsync(() -> cache.format("message {0}", blockingParameter));
+        try {
+            assertTrue(formattingLatch.await(10, TimeUnit.SECONDS));
+            // a parameter blocked while formatting (user code) must not block the other messages with the same pattern
+            final CompletableFuture<String> message = CompletableFuture.supplyAsync(() -> cache.format("message {0}", "free"));
+            assertEquals("message free", message.get(10, TimeUnit.SECONDS));
+        } finally {
+            releaseLatch.countDown();
+        }
+        assertEquals("message blocked", blockedMessage.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void statusTransitionTest() {
+        final SynchronousTask testTask = new TestTask();
+        // a task that has not been started can not be stopped
+        assertThrows(IllegalStateException.class, () -> testTask.setStatus(TaskStatus.STOPPING));
+        assertEquals(TaskStatus.INITIALIZED, testTask.getStatus());
+        testTask.perform();
+        // a task can not go back to the created status
+        assertThrows(IllegalStateException.class, () -> testTask.setStatus(TaskStatus.CREATED));
+        assertEquals(TaskStatus.STOPPED, testTask.getStatus());
+        // the JavaFX property is created on demand, with the current status
+        final ReadOnlyObjectProperty<TaskStatus> statusProperty = testTask.statusProperty();
+        assertEquals(TaskStatus.STOPPED, statusProperty.get());
+        final List<TaskStatus> propertyValues = new ArrayList<>();
+        statusProperty.addListener((observable, oldValue, newValue) -> propertyValues.add(newValue));
+        testTask.perform();
+        assertEquals(List.of(TaskStatus.STARTING, TaskStatus.STARTED, TaskStatus.STOPPING, TaskStatus.STOPPED), propertyValues);
+        assertTrue(statusProperty == testTask.statusProperty());
+    }
+
+    @Test
+    public void statusChangeAllocationTest() throws ReflectiveOperationException {
+        final int[] statusChangesCount = new int[1];
+        final SynchronousTask testTask = new TestTask();
+        testTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {
+                statusChangesCount[0]++;
+            }
+        });
+        for (int index = 0; index < 200_000; index++) {
+            testTask.setStatus(TaskStatus.STARTED);
+            testTask.setStatus(TaskStatus.STOPPING);
+        }
+        final int transitionsCount = 20_000;
+        final long measureOverhead = -getAllocatedBytes() + getAllocatedBytes();
+        final long start = getAllocatedBytes();
+        for (int index = 0; index < (transitionsCount / 2); index++) {
+            testTask.setStatus(TaskStatus.STARTED);
+            testTask.setStatus(TaskStatus.STOPPING);
+        }
+        final long allocatedBytes = getAllocatedBytes() - start - measureOverhead;
+        assertEquals(420_000, statusChangesCount[0]);
+        assertEquals(0, allocatedBytes / transitionsCount, "bytes allocated per status change : " + allocatedBytes / (double) transitionsCount);
+        // messages are not even created when nobody listens
+        final SynchronousTask unlistenedTask = new TestTask();
+        final Object[] parameters = { "parameter" };
+        for (int index = 0; index < 200_000; index++) {
+            unlistenedTask.sendTaskMessage("message {0}", parameters);
+        }
+        final int messagesCount = 20_000;
+        final long messagesStart = getAllocatedBytes();
+        for (int index = 0; index < messagesCount; index++) {
+            unlistenedTask.sendTaskMessage("message {0}", parameters);
+        }
+        final long messagesAllocatedBytes = getAllocatedBytes() - messagesStart - measureOverhead;
+        assertEquals(0, messagesAllocatedBytes / messagesCount, "bytes allocated per message : " + messagesAllocatedBytes / (double) messagesCount);
+    }
+
+    @Test
+    public void idleTaskFootprintTest() throws ReflectiveOperationException {
+        final int tasksCount = 100_000;
+        final SynchronousTask[] tasks = new SynchronousTask[tasksCount];
+        for (int index = 0; index < tasksCount; index++) {
+            tasks[index] = new TestTask();
+        }
+        final long measureOverhead = -getAllocatedBytes() + getAllocatedBytes();
+        final long start = getAllocatedBytes();
+        for (int index = 0; index < tasksCount; index++) {
+            tasks[index] = new TestTask();
+        }
+        final long bytesPerTask = (getAllocatedBytes() - start - measureOverhead) / tasksCount;
+        // an idle task only retains its own fields : no listeners storage, no cancellation token, no JavaFX property
+        assertTrue(bytesPerTask <= 128, "bytes allocated per idle task : " + bytesPerTask);
+        final SynchronousTask listenedTask = tasks[0];
+        final TaskCompletionListener listener = endStatus -> {};
+        final long singleListenerStart = getAllocatedBytes();
+        listenedTask.addTaskCompletionListener(listener);
+        // a single listener is stored inline, without any array
+        assertEquals(0, getAllocatedBytes() - singleListenerStart - measureOverhead);
+        listenedTask.removeTaskCompletionListener(listener);
+    }
+
+    @Test
+    public void stopRequestTest() throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                startLatch.countDown();
+                while (! getCancellationToken().isCancelled()) {
+                    Thread.onSpinWait();
+                }
+            }
+        };
+        final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+        testTask.addTaskCompletionListener(endStatus::set);
+        final Thread controller = new Thread(() -> {
+            try {
+                startLatch.await();
+                testTask.cancel(false);
+            } catch (final InterruptedException error) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        controller.start();
+        testTask.perform();
+        controller.join();
+        assertEquals(TaskEndStatus.ABORTED, endStatus.get());
+        assertEquals(TaskStatus.STOPPED, testTask.getStatus());
+    }
+
+    @Test
+    public void metricsTest() {
+        final TaskMetrics metrics = TaskMetrics.shared();
+        final SynchronousTask testTask = SynchronousTask.create("metrics test task", () -> {
+            try {
+                Thread.sleep(20);
+            } catch (final InterruptedException error) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        testTask.addTaskCompletionListener(endStatus -> {});
+        testTask.perform();
+        assertTrue(metrics.getSnapshot("metrics test task").isEmpty());
+
+        metrics.setEnabled(true);
+        try {
+            testTask.perform();
+            testTask.perform();
+        } finally {
+            metrics.setEnabled(false);
+        }
+        final Map<TaskPhase, LatencySnapshot> snapshot = metrics.getSnapshot("metrics test task");
+        final LatencySnapshot action = snapshot.get(TaskPhase.ACTION);
+        assertEquals(2, action.count());
+        assertTrue(action.p50() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(action.max() >= action.p999());
+        assertEquals(2, snapshot.get(TaskPhase.QUEUE_WAIT).count());
+        assertEquals(2, snapshot.get(TaskPhase.AFTER_ACTION).count());
+        assertEquals(2, snapshot.get(TaskPhase.LISTENER_DISPATCH).count());
+
+        // the number of task names is bounded
+        final TaskMetrics boundedMetrics = new TaskMetrics();
+        boundedMetrics.setMaxTasksCount(2);
+        for (int index = 0; index < 10; index++) {
+            boundedMetrics.record("task " + index, TaskPhase.ACTION, 1_000);
+        }
+        assertEquals(Set.of("task 0", "task 1", TaskMetrics.OTHER_TASKS), boundedMetrics.getSnapshot().keySet());
+        assertEquals(8, boundedMetrics.getSnapshot(TaskMetrics.OTHER_TASKS).get(TaskPhase.ACTION).count());
+        boundedMetrics.record("task 0", TaskPhase.ACTION, 1_000);
+        assertEquals(2, boundedMetrics.getSnapshot("task 0").get(TaskPhase.ACTION).count());
+    }
+
+    @Test
+    public void flightRecorderTest() throws Exception {
+        final Path recordingFile = Files.createTempFile("task-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.devtoolbox.task.Execution");
+            recording.enable("org.devtoolbox.task.StatusChange");
+            recording.enable("org.devtoolbox.task.Dispatch");
+            recording.enable("org.devtoolbox.task.Error");
+            recording.start();
+            final SynchronousTask testTask = SynchronousTask.create("recorded task", () -> {
+                throw new IllegalStateException("test error");
+            });
+            testTask.addTaskListener(new TaskListener() {
+                @Override
+                public void handleTaskStatusChange(final TaskStatus oldStatus, final TaskStatus newStatus) {}
+                @Override
+                public void handleTaskError(final TaskException error) {}
+            });
+            testTask.perform();
+            // each attempt of a retried task is recorded
+            final AtomicInteger attemptsCount = new AtomicInteger();
+            final AsynchronousTask retriedTask = AsynchronousTask.create("retried task", TaskExecutor.shared(), () -> {
+                if (attemptsCount.incrementAndGet() < 3) {
+                    throw new IllegalStateException("test error");
+                }
+            });
+            retriedTask.setRetryPolicy(RetryPolicy.exponentialBackoff(3, Duration.ofMillis(1)).withJitter(0));
+            retriedTask.perform();
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, retriedTask.completion().get(10, TimeUnit.SECONDS));
+            recording.stop();
+            recording.dump(recordingFile);
+
+            final List<RecordedEvent> recordedEvents = RecordingFile.readAllEvents(recordingFile);
+            final List<RecordedEvent> attemptEvents = recordedEvents.stream()
+                .filter(event -> "retried task".equals(event.getString("taskName")))
+                .filter(event -> "org.devtoolbox.task.Execution".equals(event.getEventType().getName()))
+                .toList();
+            assertEquals(List.of(1, 2, 3), attemptEvents.stream().map(event -> event.getInt("attempt")).toList());
+            assertEquals(List.of(TaskEndStatus.EXECUTION_FAILED.name(), TaskEndStatus.EXECUTION_FAILED.name(), TaskEndStatus.EXECUTION_SUCCESS.name()),
+                attemptEvents.stream().map(event -> event.getString("endStatus")).toList());
+            final Map<String, List<RecordedEvent>> events = recordedEvents.stream()
+                .filter(event -> "recorded task".equals(event.getString("taskName")))
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+            final List<RecordedEvent> executionEvents = events.get("org.devtoolbox.task.Execution");
+            assertEquals(1, executionEvents.size());
+            assertEquals(TaskEndStatus.EXECUTION_FAILED.name(), executionEvents.get(0).getString("endStatus"));
+            assertEquals(5, events.get("org.devtoolbox.task.StatusChange").size());
+            assertEquals(1, events.get("org.devtoolbox.task.Error").size());
+            assertEquals(5, events.get("org.devtoolbox.task.Dispatch").size());
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
+    @Test
+    public void latencyHistogramTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        final LatencySnapshot snapshot = histogram.getSnapshot();
+        assertEquals(100_000, snapshot.count());
+        assertEquals(100_000_000, snapshot.max());
+        assertPercentile(50_000_000, snapshot.p50());
+        assertPercentile(99_000_000, snapshot.p99());
+        assertPercentile(99_900_000, snapshot.p999());
+        histogram.reset();
+        assertEquals(LatencySnapshot.EMPTY, histogram.getSnapshot());
+    }
+
+    private static void assertPercentile(final long expected, final long actual) {
+        assertTrue((actual >= expected) && (actual <= expected + expected / 16), "expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    public void splittableTaskTest() {
+        final SumTask sumTask = new SumTask(1_000_000);
+        final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+        final AtomicReference<Double> notifiedProgress = new AtomicReference<>();
+        sumTask.addTaskCompletionListener(endStatus::set);
+        sumTask.addTaskListener(new TaskListener() {
+            @Override
+            public void handleTaskProgress(final long workDone, final long totalWork) {
+                notifiedProgress.set(Double.valueOf((double) workDone / totalWork));
+            }
+        });
+        sumTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, endStatus.get());
+        assertEquals(999_999L * 1_000_000L / 2, sumTask.getResult().longValue());
+        assertEquals(1, sumTask.getProgress(), 0);
+        // the last notified progress is the final one, even if the leaves updated it out of order
+        assertEquals(1, notifiedProgress.get().doubleValue(), 0);
+        assertTrue(sumTask.leavesThreads.size() > 0);
+    }
+
+    @Test
+    public void splittableTaskStopTest() {
+        final SumTask sumTask = new SumTask(1_000_000) {
+            @Override
+            protected Long computeLeaf(final long[] range) {
+                setStopAsked(true);
+                return super.computeLeaf(range);
+            }
+        };
+        final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+        sumTask.addTaskCompletionListener(endStatus::set);
+        sumTask.perform();
+        assertEquals(TaskEndStatus.ABORTED, endStatus.get());
+        assertEquals(null, sumTask.getResult());
+        assertTrue(sumTask.getWorkDone() < sumTask.getTotalWork());
+    }
+
+    @Test
+    public void overlappingPerformTest() throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final AtomicInteger executionsCount = new AtomicInteger();
+        final SynchronousTask testTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                executionsCount.incrementAndGet();
+                startLatch.countDown();
+                try {
+                    releaseLatch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        final Thread runner = new Thread(testTask::perform);
+        runner.start();
+        assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+        testTask.perform();
+        releaseLatch.countDown();
+        runner.join();
+        assertEquals(1, executionsCount.get());
+        testTask.perform();
+        assertEquals(2, executionsCount.get());
+    }
+
+    @Test
+    public void recurringTaskTest() throws InterruptedException {
+        final AtomicInteger runningCount = new AtomicInteger();
+        final AtomicInteger maxRunningCount = new AtomicInteger();
+        final CountDownLatch firstRunLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final CountDownLatch slowRunsLatch = new CountDownLatch(3);
+        final SynchronousTask slowTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                maxRunningCount.accumulateAndGet(runningCount.incrementAndGet(), Math::max);
+                firstRunLatch.countDown();
+                try {
+                    // the first run lasts until the test has seen due times missed while it was running
+                    releaseLatch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+                runningCount.decrementAndGet();
+                slowRunsLatch.countDown();
+            }
+        };
+        final RecurringExecution fixedRate = TaskTimer.shared().scheduleRecurring(slowTask, RecurringSchedule.fixedRate(Duration.ofMillis(10)));
+        try {
+            assertTrue(firstRunLatch.await(10, TimeUnit.SECONDS));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((fixedRate.getMissedRunsCount() < 2) && (System.nanoTime() < deadline)) {
+                Thread.sleep(1);
+            }
+            assertTrue(fixedRate.getMissedRunsCount() >= 2, "missed runs count : " + fixedRate.getMissedRunsCount());
+            releaseLatch.countDown();
+            assertTrue(slowRunsLatch.await(10, TimeUnit.SECONDS));
+        } finally {
+            releaseLatch.countDown();
+            fixedRate.cancel();
+        }
+        assertTrue(fixedRate.getRunsCount() >= 3, "runs count : " + fixedRate.getRunsCount());
+        assertEquals(1, maxRunningCount.get());
+        // the duration of a run is recorded once it's completed, the last run may not be yet
+        assertTrue(fixedRate.getRunDurations().count() >= 2);
+
+        final CountDownLatch fastRunsLatch = new CountDownLatch(3);
+        final SynchronousTask fastTask = new TestTask() {
+            @Override
+            protected void performAction() {
+                fastRunsLatch.countDown();
+            }
+        };
+        final RecurringSchedule schedule = RecurringSchedule.fixedDelay(Duration.ofMillis(5)).withJitter(Duration.ofMillis(5))
+            .withOverlapPolicy(OverlapPolicy.DELAY);
+        final RecurringExecution fixedDelay = TaskTimer.shared().scheduleRecurring(fastTask, schedule);
+        try {
+            assertTrue(fastRunsLatch.await(10, TimeUnit.SECONDS));
+        } finally {
+            fixedDelay.cancel();
+        }
+        assertTrue(fixedDelay.isCancelled());
+        assertTrue(fixedDelay.getRunsCount() >= 3, "runs count : " + fixedDelay.getRunsCount());
+        // with a fixed delay, the next run is only scheduled once the previous one is completed : no due time is ever missed
+        assertEquals(0, fixedDelay.getMissedRunsCount());
+    }
+
+    @Test
+    public void delayedRunTest() throws InterruptedException {
+        final AtomicReference<Runnable> dueTimeAction = new AtomicReference<>();
+        // a timer whose due times are triggered by the test
+        final TaskTimer manualTimer = new TaskTimer("manual-timer") {
+            @Override
+            public ScheduledFuture<?> schedule(final Runnable action, final Duration delay) {
+                dueTimeAction.set(action);
+                return super.schedule(action, Duration.ofDays(1));
+            }
+        };
+        final AtomicReference<CountDownLatch> releaseLatch = new AtomicReference<>();
+        final Semaphore startedRuns = new Semaphore(0);
+        final Semaphore completedRuns = new Semaphore(0);
+        final SynchronousTask task = new TestTask() {
+            @Override
+            protected void performAction() {
+                startedRuns.release();
+                try {
+                    releaseLatch.get().await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        final TaskExecutor threadPerRun = (runTask, command) -> Thread.ofPlatform().start(command);
+        final RecurringSchedule schedule = RecurringSchedule.fixedRate(Duration.ofHours(1)).withOverlapPolicy(OverlapPolicy.DELAY);
+        final RecurringExecution execution = manualTimer.scheduleRecurring(task, schedule, threadPerRun);
+        // registered after the recurring execution : notified once it has handled the completion
+        task.addTaskCompletionListener(endStatus -> completedRuns.release());
+        try {
+            for (int index = 0; index < 500; index++) {
+                final CountDownLatch latch = new CountDownLatch(1);
+                releaseLatch.set(latch);
+                dueTimeAction.get().run();
+                assertTrue(startedRuns.tryAcquire(10, TimeUnit.SECONDS));
+                // the next due time races with the completion of the run : it's either run right away or delayed, never lost
+                final Runnable nextDueTime = dueTimeAction.get();
+                final Thread timerThread = Thread.ofPlatform().start(() -> {
+                    try {
+                        latch.await(10, TimeUnit.SECONDS);
+                    } catch (final InterruptedException error) {
+                        Thread.currentThread().interrupt();
+                    }
+                    nextDueTime.run();
+                });
+                latch.countDown();
+                timerThread.join(10_000);
+                assertTrue(startedRuns.tryAcquire(10, TimeUnit.SECONDS), "run lost at iteration " + index);
+                assertTrue(completedRuns.tryAcquire(2, 10, TimeUnit.SECONDS));
+            }
+        } finally {
+            execution.cancel();
+            manualTimer.close();
+        }
+        // no stale delayed run has been started after a regular run
+        assertEquals(0, startedRuns.availablePermits());
+        assertEquals(1_000, execution.getRunsCount());
+        assertEquals(0, execution.getMissedRunsCount());
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread. The management API is used through reflection since the module does not require it.
+     */
+    private static long getAllocatedBytes() throws ReflectiveOperationException {
+        final Object threadBean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+        return (Long) Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes").invoke(threadBean);
+    }
+
 
     protected static class TestTask extends SynchronousTask {
 
@@ -316,4 +1288,105 @@ public class SynchronousTaskTest {
         protected void performAction() {
         }
     }
-}
\ No newline at end of file
+
+
+    protected static class SumTask extends SplittableTask<long[], Long> {
+
+        private final long size;
+        private final Set<Thread> leavesThreads = ConcurrentHashMap.newKeySet();
+
+        protected SumTask(final long size) {
+            super("sum task");
+            this.size = size;
+        }
+
+        @Override
+        protected long[] getWork() {
+            return new long[] { 0, size };
+        }
+
+        @Override
+        protected List<long[]> split(final long[] range) {
+            if (range[1] - range[0] <= 1_000) {
+                return List.of();
+            }
+            final long middle = (range[0] + range[1]) / 2;
+            return List.of(new long[] { range[0], middle }, new long[] { middle, range[1] });
+        }
+
+        @Override
+        protected Long computeLeaf(final long[] range) {
+            leavesThreads.add(Thread.currentThread());
+            long sum = 0;
+            for (long value = range[0]; value < range[1]; value++) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        @Override
+        protected Long combine(final Long left, final Long right) {
+            return left + right;
+        }
+
+        @Override
+        protected long getWorkSize(final long[] range) {
+            return range[1] - range[0];
+        }
+    }
+
+    private static final class MessagesTask extends SynchronousTask {
+
+        private final int messagesCount;
+
+
+        private MessagesTask(final String name, final int messagesCount) {
+            super(name);
+            this.messagesCount = messagesCount;
+        }
+
+        @Override
+        protected void performAction() {
+            for (int index = 0; index < messagesCount; index++) {
+                sendTaskMessage("message {0}", Integer.valueOf(index));
+            }
+        }
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<TaskEvent> {
+
+        private final long initialRequest;
+        private final List<TaskEvent> events = new CopyOnWriteArrayList<>();
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+
+        private RecordingSubscriber(final long initialRequest) {
+            super();
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription newSubscription) {
+            subscription = newSubscription;
+            if (initialRequest > 0) {
+                newSubscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(final TaskEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            fail("task event streams never complete");
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * MIT License
+ *
+ * Copyright © 2020-2023 dev-toolbox.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.devtoolbox.util.task.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.devtoolbox.util.task.Task;
+import org.devtoolbox.util.task.executor.Bulkhead;
+import org.devtoolbox.util.task.executor.RejectionPolicy;
+import org.devtoolbox.util.task.executor.TaskExecutor;
+import org.devtoolbox.util.task.executor.ThreadPoolTaskExecutor;
+import org.devtoolbox.util.task.graph.ParallelTask;
+import org.devtoolbox.util.task.graph.SequentialTask;
+import org.devtoolbox.util.task.graph.TaskGraph;
+import org.devtoolbox.util.task.graph.TaskGraphReport;
+import org.devtoolbox.util.task.graph.TaskGraphReport.NodeReport;
+import org.devtoolbox.util.task.implementation.AsynchronousTask;
+import org.devtoolbox.util.task.implementation.SynchronousTask;
+import org.devtoolbox.util.task.status.TaskEndStatus;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Arnaud Lecollaire
+ */
+public class TaskGraphTest {
+
+    @Test
+    public void parallelExecutionTest() {
+        // b and c can only complete if they run at the same time
+        final CountDownLatch parallelTasks = new CountDownLatch(2);
+        final Runnable parallelAction = () -> {
+            parallelTasks.countDown();
+            try {
+                assertTrue(parallelTasks.await(5, TimeUnit.SECONDS));
+            } catch (final InterruptedException error) {
+                throw new IllegalStateException(error);
+            }
+        };
+        final Task a = SynchronousTask.create("a", () -> {});
+        final Task b = SynchronousTask.create("b", parallelAction);
+        final Task c = SynchronousTask.create("c", parallelAction);
+        final Task d = SynchronousTask.create("d", () -> {});
+        final TaskGraph graph = new TaskGraph("diamond", TaskExecutor.virtualThreads());
+        graph.addTask(d, b, c);
+        graph.addTask(b, a);
+        graph.addTask(c, a);
+        assertEquals(List.of(a, b, c, d), graph.getTopologicalOrder());
+
+        final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+        graph.addTaskCompletionListener(endStatus::set);
+        graph.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, endStatus.get());
+        final TaskGraphReport report = graph.getReport();
+        assertEquals(4, report.nodes().size());
+        for (final NodeReport node : report.nodes()) {
+            assertTrue(node.executed());
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, node.endStatus());
+        }
+        assertEquals(a, report.criticalPath().get(0));
+        assertEquals(d, report.criticalPath().get(2));
+    }
+
+    @Test
+    public void cycleDetectionTest() {
+        final Task a = SynchronousTask.create("a", () -> {});
+        final Task b = SynchronousTask.create("b", () -> {});
+        final Task c = SynchronousTask.create("c", () -> {});
+        final TaskGraph graph = new TaskGraph("cycle");
+        graph.addTask(b, a);
+        graph.addTask(c, b);
+        final IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> graph.addTask(a, c));
+        assertTrue(error.getMessage().contains("[c -> b -> a] -> c"));
+        assertThrows(IllegalArgumentException.class, () -> graph.addTask(a, a));
+        assertEquals(List.of(a, b, c), graph.getTopologicalOrder());
+    }
+
+    @Test
+    public void failurePropagationTest() {
+        final Task a = SynchronousTask.create("a", () -> {});
+        final SynchronousTask b = new SynchronousTask("b") {
+            @Override
+            protected void performAction() {
+                throw new IllegalStateException("test failure");
+            }
+        };
+        final Task c = SynchronousTask.create("c", () -> {});
+        final Task d = SynchronousTask.create("d", () -> {});
+        final Task e = SynchronousTask.create("e", () -> {});
+        final TaskGraph graph = new TaskGraph("failure", TaskExecutor.callerRuns());
+        graph.addTask(b, a);
+        graph.addTask(c, b);
+        graph.addTask(d, c);
+        graph.addTask(e, a);
+
+        final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+        graph.addTaskCompletionListener(endStatus::set);
+        graph.perform();
+        assertEquals(TaskEndStatus.EXECUTION_FAILED, endStatus.get());
+        final List<NodeReport> nodes = graph.getReport().nodes();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, nodes.get(0).endStatus());
+        assertEquals(TaskEndStatus.EXECUTION_FAILED, findNode(nodes, b).endStatus());
+        assertEquals(TaskEndStatus.ABORTED, findNode(nodes, c).endStatus());
+        assertFalse(findNode(nodes, c).executed());
+        assertEquals(TaskEndStatus.ABORTED, findNode(nodes, d).endStatus());
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, findNode(nodes, e).endStatus());
+    }
+
+    @Test
+    public void sequentialTaskTest() {
+        final List<String> executedTasks = new CopyOnWriteArrayList<>();
+        final Task a = SynchronousTask.create("a", () -> executedTasks.add("a"));
+        final Task b = SynchronousTask.create("b", () -> executedTasks.add("b"));
+        final Task c = SynchronousTask.create("c", () -> {
+            executedTasks.add("c");
+            throw new IllegalStateException("test failure");
+        });
+        final Task d = SynchronousTask.create("d", () -> executedTasks.add("d"));
+        final SequentialTask sequence = new SequentialTask("sequence", a, b);
+        sequence.addTask(c);
+        sequence.addTask(d);
+        assertEquals(List.of(a, b, c, d), sequence.getTopologicalOrder());
+
+        final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+        sequence.addTaskCompletionListener(endStatus::set);
+        sequence.perform();
+        assertEquals(List.of("a", "b", "c"), executedTasks);
+        assertEquals(TaskEndStatus.EXECUTION_FAILED, endStatus.get());
+        assertEquals(TaskEndStatus.ABORTED, findNode(sequence.getReport().nodes(), d).endStatus());
+        assertEquals(1, sequence.getProgress(), 0);
+    }
+
+    @Test
+    public void rejectedChildTest() {
+        final Bulkhead bulkhead = new Bulkhead("graph bulkhead", 1, 0, null);
+        // the only permit is held, the child is rejected as soon as it's started
+        assertTrue(bulkhead.acquire(() -> {}, () -> {}));
+        try {
+            final List<String> executedTasks = new CopyOnWriteArrayList<>();
+            final Task a = SynchronousTask.create("a", () -> executedTasks.add("a"));
+            final AsynchronousTask b = AsynchronousTask.create("b", TaskExecutor.shared(), () -> executedTasks.add("b"));
+            b.setBulkhead(bulkhead);
+            final Task c = SynchronousTask.create("c", () -> executedTasks.add("c"));
+            final SequentialTask sequence = new SequentialTask("rejecting sequence", a, b, c);
+
+            final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+            sequence.addTaskCompletionListener(endStatus::set);
+            sequence.perform();
+            assertEquals(List.of("a"), executedTasks);
+            // the sequence ends with the status of the rejected child, not with the status of the skipped one
+            assertEquals(TaskEndStatus.REJECTED, endStatus.get());
+            assertEquals(TaskEndStatus.REJECTED, findNode(sequence.getReport().nodes(), b).endStatus());
+            assertEquals(TaskEndStatus.ABORTED, findNode(sequence.getReport().nodes(), c).endStatus());
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Test
+    public void parallelTaskTest() {
+        final int childrenCount = 20;
+        final AtomicInteger executedTasks = new AtomicInteger();
+        final Task[] children = new Task[childrenCount];
+        for (int index = 0; index < childrenCount; index++) {
+            // asynchronous children complete from another thread than the one running them
+            children[index] = AsynchronousTask.create("child " + index, TaskExecutor.virtualThreads(), executedTasks::incrementAndGet);
+        }
+        final ParallelTask parallelTask = new ParallelTask("parallel", children);
+
+        final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+        parallelTask.addTaskCompletionListener(endStatus::set);
+        parallelTask.perform();
+        assertEquals(TaskEndStatus.EXECUTION_SUCCESS, endStatus.get());
+        assertEquals(childrenCount, executedTasks.get());
+        assertEquals(1, parallelTask.getProgress(), 0);
+    }
+
+    @Test
+    public void nestedGraphTest() {
+        final AtomicInteger executedTasks = new AtomicInteger();
+        try (final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("graph-executor", 1, Integer.MAX_VALUE, RejectionPolicy.ABORT)) {
+            // a nested graph waiting for its tasks would hold the only thread of the executor, and its tasks could never run
+            final ParallelTask first = new ParallelTask("first", executor,
+                SynchronousTask.create("a", executedTasks::incrementAndGet), SynchronousTask.create("b", executedTasks::incrementAndGet));
+            final SequentialTask second = new SequentialTask("second", executor,
+                SynchronousTask.create("c", executedTasks::incrementAndGet), SynchronousTask.create("d", executedTasks::incrementAndGet));
+            final ParallelTask root = new ParallelTask("root", executor, first, second);
+
+            final AtomicReference<TaskEndStatus> endStatus = new AtomicReference<>();
+            root.addTaskCompletionListener(endStatus::set);
+            assertTimeoutPreemptively(Duration.ofSeconds(10), root::perform);
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, endStatus.get());
+            assertEquals(4, executedTasks.get());
+            assertEquals(1, root.getProgress(), 0);
+            assertEquals(1, first.getProgress(), 0);
+            assertEquals(TaskEndStatus.EXECUTION_SUCCESS, findNode(root.getReport().nodes(), second).endStatus());
+        }
+    }
+
+    private static NodeReport findNode(final List<NodeReport> nodes, final Task task) {
+        return nodes.stream().filter(node -> node.task() == task).findFirst().orElseThrow();
+    }
+}